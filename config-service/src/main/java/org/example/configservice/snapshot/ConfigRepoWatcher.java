@@ -0,0 +1,59 @@
+package org.example.configservice.snapshot;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.IOException;
+import java.util.TreeMap;
+
+/**
+ * Detects changes in the native config repo by comparing the size and modification time of its
+ * files, and reloads the snapshots when something changed. Reading the directory listing is much
+ * cheaper than re-resolving every application on each client fetch.
+ */
+public class ConfigRepoWatcher {
+
+    private static final Log log = LogFactory.getLog(ConfigRepoWatcher.class);
+
+    private final SnapshotEnvironmentRepository repository;
+    private final ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+    private TreeMap<String, String> lastFingerprint;
+
+    public ConfigRepoWatcher(SnapshotEnvironmentRepository repository) {
+        this.repository = repository;
+    }
+
+    @Scheduled(fixedDelayString = "${config.snapshot.scan-interval:2000}")
+    public void scan() {
+        TreeMap<String, String> fingerprint = fingerprint();
+        if (lastFingerprint != null && !fingerprint.equals(lastFingerprint)) {
+            log.debug("Config repo changed, reloading snapshots");
+            repository.reload();
+        }
+        lastFingerprint = fingerprint;
+    }
+
+    private TreeMap<String, String> fingerprint() {
+        TreeMap<String, String> fingerprint = new TreeMap<>();
+        for (String location : repository.getSearchLocations()) {
+            String pattern = location.endsWith("/") ? location + "**" : location + "/**";
+            try {
+                for (Resource resource : resolver.getResources(pattern)) {
+                    if (resource.isFile() && resource.getFile().isFile()) {
+                        fingerprint.put(resource.getURI().toString(),
+                                resource.contentLength() + ":" + resource.lastModified());
+                    }
+                }
+            }
+            catch (IOException e) {
+                // missing or unreadable location: treated as empty, like the native repository does
+                log.trace("Cannot list config location " + location, e);
+            }
+        }
+        return fingerprint;
+    }
+}
@@ -0,0 +1,13 @@
+package org.example.configservice.snapshot;
+
+import org.springframework.cloud.config.environment.Environment;
+
+/**
+ * Resolved configuration of one application/profile/label, as served to clients,
+ * together with a version derived from its content.
+ */
+public record ConfigSnapshot(SnapshotKey key, String version, Environment environment) {
+
+    public record SnapshotKey(String application, String profile, String label, boolean includeOrigin) {
+    }
+}
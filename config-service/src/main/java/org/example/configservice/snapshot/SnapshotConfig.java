@@ -0,0 +1,22 @@
+package org.example.configservice.snapshot;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+@Profile("native")
+public class SnapshotConfig {
+
+    @Bean
+    public static SnapshotRepositoryPostProcessor snapshotRepositoryPostProcessor() {
+        return new SnapshotRepositoryPostProcessor();
+    }
+
+    @Bean
+    public ConfigRepoWatcher configRepoWatcher(SnapshotEnvironmentRepository repository) {
+        return new ConfigRepoWatcher(repository);
+    }
+}
@@ -0,0 +1,108 @@
+package org.example.configservice.snapshot;
+
+import org.example.configservice.snapshot.ConfigSnapshot.SnapshotKey;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Versioned access to the config snapshots.
+ * <ul>
+ *     <li>{@code GET /snapshots/{application}/{profile}} returns the environment with its version as
+ *     ETag, and {@code 304} when the client sends a matching {@code If-None-Match}.</li>
+ *     <li>{@code GET /snapshots/{application}/{profile}/changes?version=...} is a long poll: it answers
+ *     as soon as the version differs from the one the client has, or {@code 304} after the timeout.</li>
+ * </ul>
+ */
+@RestController
+@RequestMapping("/snapshots")
+@Profile("native")
+public class SnapshotController {
+
+    private final SnapshotEnvironmentRepository repository;
+    private final long maxHoldMillis;
+    private final ConcurrentMap<SnapshotKey, Set<DeferredResult<ResponseEntity<SnapshotVersion>>>> waiters =
+            new ConcurrentHashMap<>();
+
+    public SnapshotController(SnapshotEnvironmentRepository repository,
+                              @Value("${config.snapshot.max-hold:60000}") long maxHoldMillis) {
+        this.repository = repository;
+        this.maxHoldMillis = maxHoldMillis;
+        repository.addListener(this::notifyWaiters);
+    }
+
+    @GetMapping("/{application}/{profile}")
+    public ResponseEntity<Environment> snapshot(@PathVariable String application,
+                                                @PathVariable String profile,
+                                                @RequestParam(required = false) String label,
+                                                WebRequest request) {
+        ConfigSnapshot snapshot = repository.snapshot(application, profile, label, false);
+        if (request.checkNotModified(snapshot.version())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(snapshot.version())
+                .body(SnapshotEnvironmentRepository.copyOf(snapshot));
+    }
+
+    @GetMapping("/{application}/{profile}/changes")
+    public DeferredResult<ResponseEntity<SnapshotVersion>> changes(@PathVariable String application,
+                                                                   @PathVariable String profile,
+                                                                   @RequestParam(required = false) String label,
+                                                                   @RequestParam(required = false) String version,
+                                                                   @RequestParam(defaultValue = "30000") long timeout) {
+        long hold = Math.max(0, Math.min(timeout, maxHoldMillis));
+        DeferredResult<ResponseEntity<SnapshotVersion>> result =
+                new DeferredResult<>(hold, ResponseEntity.status(HttpStatus.NOT_MODIFIED).build());
+
+        ConfigSnapshot current = repository.snapshot(application, profile, label, false);
+        if (!current.version().equals(version)) {
+            result.setResult(ResponseEntity.ok(SnapshotVersion.of(current)));
+            return result;
+        }
+
+        SnapshotKey key = current.key();
+        waiters.compute(key, (k, pending) -> {
+            Set<DeferredResult<ResponseEntity<SnapshotVersion>>> set =
+                    pending != null ? pending : ConcurrentHashMap.newKeySet();
+            set.add(result);
+            return set;
+        });
+        // drop the set with its last waiter, so keys that nobody polls anymore do not pile up
+        result.onCompletion(() -> waiters.computeIfPresent(key, (k, pending) -> {
+            pending.remove(result);
+            return pending.isEmpty() ? null : pending;
+        }));
+
+        // the snapshot may have been reloaded between the first read and the registration
+        ConfigSnapshot latest = repository.snapshot(application, profile, label, false);
+        if (!latest.version().equals(version)) {
+            result.setResult(ResponseEntity.ok(SnapshotVersion.of(latest)));
+        }
+        return result;
+    }
+
+    private void notifyWaiters(ConfigSnapshot snapshot) {
+        Set<DeferredResult<ResponseEntity<SnapshotVersion>>> pending = waiters.get(snapshot.key());
+        if (pending == null) {
+            return;
+        }
+        ResponseEntity<SnapshotVersion> changed = ResponseEntity.ok(SnapshotVersion.of(snapshot));
+        for (DeferredResult<ResponseEntity<SnapshotVersion>> result : pending) {
+            result.setResult(changed);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package org.example.configservice.snapshot;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.example.configservice.snapshot.ConfigSnapshot.SnapshotKey;
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.cloud.config.environment.PropertySource;
+import org.springframework.cloud.config.server.environment.EnvironmentRepository;
+import org.springframework.cloud.config.server.environment.NativeEnvironmentRepository;
+import org.springframework.cloud.config.server.environment.SearchPathLocator;
+import org.springframework.core.Ordered;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the resolved {@link Environment} of every application/profile/label that was requested
+ * so far, instead of re-reading and re-resolving the native config files on each fetch.
+ * <p>
+ * Each snapshot carries a content version (also exposed as {@link Environment#getVersion()}, so
+ * regular config clients see it as {@code config.client.version}). Snapshots are only rebuilt by
+ * {@link #reload()}, which {@link ConfigRepoWatcher} calls when a file of the repo changed.
+ * <p>
+ * Keys come from the request path, so at most {@code maxEntries} snapshots are kept and the least
+ * recently used one is dropped beyond that; it is simply resolved again on its next fetch.
+ */
+public class SnapshotEnvironmentRepository implements EnvironmentRepository, SearchPathLocator, Ordered {
+
+    private static final Log log = LogFactory.getLog(SnapshotEnvironmentRepository.class);
+
+    private final NativeEnvironmentRepository delegate;
+    private final Map<SnapshotKey, ConfigSnapshot> snapshots;
+    private final CopyOnWriteArrayList<Consumer<ConfigSnapshot>> listeners = new CopyOnWriteArrayList<>();
+    // bumped by each reload, guarded by snapshots: a snapshot loaded across a reload may be stale
+    private long generation;
+
+    public SnapshotEnvironmentRepository(NativeEnvironmentRepository delegate, int maxEntries) {
+        this.delegate = delegate;
+        this.snapshots = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<SnapshotKey, ConfigSnapshot> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public Environment findOne(String application, String profile, String label) {
+        return findOne(application, profile, label, false);
+    }
+
+    @Override
+    public Environment findOne(String application, String profile, String label, boolean includeOrigin) {
+        return copyOf(snapshot(application, profile, label, includeOrigin));
+    }
+
+    public ConfigSnapshot snapshot(String application, String profile, String label, boolean includeOrigin) {
+        SnapshotKey key = new SnapshotKey(application, profile, label, includeOrigin);
+        while (true) {
+            long loadedIn;
+            synchronized (snapshots) {
+                ConfigSnapshot snapshot = snapshots.get(key);
+                if (snapshot != null) {
+                    return snapshot;
+                }
+                loadedIn = generation;
+            }
+            // resolved outside the lock: a slow first fetch must not block the cached ones
+            ConfigSnapshot loaded = load(key);
+            synchronized (snapshots) {
+                if (generation == loadedIn) {
+                    ConfigSnapshot raced = snapshots.putIfAbsent(key, loaded);
+                    return raced != null ? raced : loaded;
+                }
+            }
+            // the repo changed while loading, and the reload did not see this key yet: load it again
+        }
+    }
+
+    int size() {
+        synchronized (snapshots) {
+            return snapshots.size();
+        }
+    }
+
+    /**
+     * Rebuilds every known snapshot and notifies the listeners of those whose version changed.
+     */
+    public void reload() {
+        List<SnapshotKey> keys;
+        synchronized (snapshots) {
+            generation++;
+            keys = List.copyOf(snapshots.keySet());
+        }
+        for (SnapshotKey key : keys) {
+            ConfigSnapshot fresh;
+            try {
+                fresh = load(key);
+            }
+            catch (RuntimeException e) {
+                log.warn("Could not reload configuration for " + key + ", keeping the previous snapshot", e);
+                continue;
+            }
+            ConfigSnapshot previous;
+            synchronized (snapshots) {
+                // evicted meanwhile: nobody fetched it recently, it will be loaded again on demand
+                previous = snapshots.replace(key, fresh);
+            }
+            if (previous != null && !previous.version().equals(fresh.version())) {
+                log.info("Configuration of " + key.application() + "/" + key.profile()
+                        + " changed, version " + fresh.version());
+                listeners.forEach(listener -> listener.accept(fresh));
+            }
+        }
+    }
+
+    public void addListener(Consumer<ConfigSnapshot> listener) {
+        listeners.add(listener);
+    }
+
+    public String[] getSearchLocations() {
+        return delegate.getSearchLocations();
+    }
+
+    @Override
+    public Locations getLocations(String application, String profile, String label) {
+        return delegate.getLocations(application, profile, label);
+    }
+
+    @Override
+    public int getOrder() {
+        return delegate.getOrder();
+    }
+
+    private ConfigSnapshot load(SnapshotKey key) {
+        Environment environment = delegate.findOne(key.application(), key.profile(), key.label(), key.includeOrigin());
+        String version = versionOf(environment);
+        environment.setVersion(version);
+        return new ConfigSnapshot(key, version, environment);
+    }
+
+    static Environment copyOf(ConfigSnapshot snapshot) {
+        // callers (controller, encryptor) may add or replace property sources, never share the cached list
+        Environment cached = snapshot.environment();
+        Environment copy = new Environment(cached.getName(), cached.getProfiles(), cached.getLabel(),
+                snapshot.version(), cached.getState());
+        copy.addAll(cached.getPropertySources());
+        return copy;
+    }
+
+    static String versionOf(Environment environment) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        for (PropertySource source : environment.getPropertySources()) {
+            digest.update(source.getName().getBytes(StandardCharsets.UTF_8));
+            for (Map.Entry<?, ?> entry : source.getSource().entrySet()) {
+                digest.update((entry.getKey() + "=" + entry.getValue() + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest(), 0, 8);
+    }
+}
@@ -0,0 +1,40 @@
+package org.example.configservice.snapshot;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.SmartInstantiationAwareBeanPostProcessor;
+import org.springframework.cloud.config.server.environment.NativeEnvironmentRepository;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+
+/**
+ * Wraps the auto-configured {@link NativeEnvironmentRepository} in a {@link SnapshotEnvironmentRepository}.
+ * <p>
+ * The config server builds its native repository without a {@code @ConditionalOnMissingBean}, so it
+ * cannot be replaced by declaring another bean; wrapping it keeps the composite repository, the
+ * health indicator and the resource controller working on top of the snapshots.
+ */
+public class SnapshotRepositoryPostProcessor implements SmartInstantiationAwareBeanPostProcessor, EnvironmentAware {
+
+    private int maxEntries = 256;
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        maxEntries = environment.getProperty("config.snapshot.max-entries", Integer.class, maxEntries);
+    }
+
+    @Override
+    public Class<?> predictBeanType(Class<?> beanClass, String beanName) throws BeansException {
+        if (NativeEnvironmentRepository.class.isAssignableFrom(beanClass)) {
+            return SnapshotEnvironmentRepository.class;
+        }
+        return null;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (bean instanceof NativeEnvironmentRepository nativeRepository) {
+            return new SnapshotEnvironmentRepository(nativeRepository, maxEntries);
+        }
+        return bean;
+    }
+}
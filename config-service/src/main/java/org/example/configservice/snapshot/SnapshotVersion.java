@@ -0,0 +1,9 @@
+package org.example.configservice.snapshot;
+
+public record SnapshotVersion(String application, String profile, String label, String version) {
+
+    static SnapshotVersion of(ConfigSnapshot snapshot) {
+        return new SnapshotVersion(snapshot.key().application(), snapshot.key().profile(),
+                snapshot.key().label(), snapshot.version());
+    }
+}
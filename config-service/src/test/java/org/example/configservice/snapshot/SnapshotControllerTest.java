@@ -0,0 +1,110 @@
+package org.example.configservice.snapshot;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "eureka.client.enabled=false",
+        "config.snapshot.scan-interval=3600000"
+})
+@AutoConfigureMockMvc
+class SnapshotControllerTest {
+
+    private static final Path REPO = createRepo();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SnapshotEnvironmentRepository repository;
+
+    @DynamicPropertySource
+    static void searchLocations(DynamicPropertyRegistry registry) {
+        registry.add("spring.cloud.config.server.native.search-locations", () -> REPO.toUri().toString());
+    }
+
+    @Test
+    void snapshotIsServedWithItsVersionAsETagAndNotModifiedOnMatch() throws Exception {
+        write("order-service.properties", "order.page-size=20\n");
+        repository.reload();
+        String version = repository.snapshot("order-service", "default", null, false).version();
+
+        mockMvc.perform(get("/snapshots/order-service/default"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"" + version + "\""))
+                .andExpect(jsonPath("$.version").value(version))
+                .andExpect(jsonPath("$.propertySources[0].source['order.page-size']").value("20"));
+
+        mockMvc.perform(get("/snapshots/order-service/default").header("If-None-Match", "\"" + version + "\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void longPollAnswersWhenTheConfigurationChanges() throws Exception {
+        write("product-service.properties", "product.page-size=50\n");
+        String version = repository.snapshot("product-service", "default", null, false).version();
+
+        MvcResult pending = mockMvc.perform(get("/snapshots/product-service/default/changes")
+                        .param("version", version)
+                        .param("timeout", "10000"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        write("product-service.properties", "product.page-size=80\n");
+        repository.reload();
+
+        String changed = repository.snapshot("product-service", "default", null, false).version();
+        assertNotEquals(version, changed);
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(changed));
+    }
+
+    @Test
+    void longPollAnswersAtOnceWhenTheClientIsBehind() throws Exception {
+        write("gateway-service.properties", "gateway.timeout=5\n");
+
+        MvcResult result = mockMvc.perform(get("/snapshots/gateway-service/default/changes")
+                        .param("version", "outdated"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.application").value("gateway-service"));
+    }
+
+    private static void write(String file, String content) throws IOException {
+        Files.writeString(REPO.resolve(file), content);
+    }
+
+    private static Path createRepo() {
+        try {
+            Path repo = Files.createTempDirectory("config-repo");
+            repo.toFile().deleteOnExit();
+            return repo;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
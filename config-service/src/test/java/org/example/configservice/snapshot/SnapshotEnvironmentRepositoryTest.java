@@ -0,0 +1,140 @@
+package org.example.configservice.snapshot;
+
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.cloud.config.server.environment.NativeEnvironmentProperties;
+import org.springframework.cloud.config.server.environment.NativeEnvironmentRepository;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class SnapshotEnvironmentRepositoryTest {
+
+    @TempDir
+    Path repo;
+
+    private SnapshotEnvironmentRepository repository;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        write("order-service.properties", "order.page-size=20\n");
+        write("product-service.properties", "product.page-size=50\n");
+        NativeEnvironmentProperties properties = new NativeEnvironmentProperties();
+        properties.setSearchLocations(new String[]{repo.toUri().toString()});
+        repository = new SnapshotEnvironmentRepository(
+                new NativeEnvironmentRepository(new StandardEnvironment(), properties, ObservationRegistry.NOOP), 2);
+    }
+
+    @Test
+    void snapshotIsResolvedOnceAndVersionedByContent() throws IOException {
+        ConfigSnapshot first = repository.snapshot("order-service", "default", null, false);
+        assertSame(first, repository.snapshot("order-service", "default", null, false));
+        assertEquals(first.version(), repository.findOne("order-service", "default", null).getVersion());
+
+        write("order-service.properties", "order.page-size=20\n");
+        repository.reload();
+        assertEquals(first.version(), repository.snapshot("order-service", "default", null, false).version());
+    }
+
+    @Test
+    void reloadNotifiesOnlyTheSnapshotsWhoseContentChanged() throws IOException {
+        List<ConfigSnapshot> changes = new ArrayList<>();
+        repository.addListener(changes::add);
+        String before = repository.snapshot("order-service", "default", null, false).version();
+        repository.snapshot("product-service", "default", null, false);
+
+        write("order-service.properties", "order.page-size=30\n");
+        repository.reload();
+
+        assertEquals(1, changes.size());
+        assertEquals("order-service", changes.get(0).key().application());
+        assertNotEquals(before, changes.get(0).version());
+        assertEquals(changes.get(0).version(), repository.findOne("order-service", "default", null).getVersion());
+    }
+
+    @Test
+    void leastRecentlyUsedSnapshotIsDroppedBeyondTheLimit() {
+        ConfigSnapshot orders = repository.snapshot("order-service", "default", null, false);
+        repository.snapshot("product-service", "default", null, false);
+        repository.snapshot("order-service", "default", null, false);
+        repository.snapshot("unknown-" + System.nanoTime(), "default", null, false);
+
+        assertEquals(2, repository.size());
+        assertSame(orders, repository.snapshot("order-service", "default", null, false));
+    }
+
+    @Test
+    void snapshotLoadedAcrossAReloadIsNotCached() throws Exception {
+        CountDownLatch loaded = new CountDownLatch(1);
+        CountDownLatch reloaded = new CountDownLatch(1);
+        AtomicBoolean first = new AtomicBoolean(true);
+        NativeEnvironmentProperties properties = new NativeEnvironmentProperties();
+        properties.setSearchLocations(new String[]{repo.toUri().toString()});
+        NativeEnvironmentRepository slow = new NativeEnvironmentRepository(new StandardEnvironment(), properties,
+                ObservationRegistry.NOOP) {
+            @Override
+            public Environment findOne(String application, String profile, String label, boolean includeOrigin) {
+                Environment environment = super.findOne(application, profile, label, includeOrigin);
+                if (first.getAndSet(false)) {
+                    // read before the change, handed back after the reload
+                    loaded.countDown();
+                    await(reloaded);
+                }
+                return environment;
+            }
+        };
+        SnapshotEnvironmentRepository racing = new SnapshotEnvironmentRepository(slow, 2);
+
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            Future<ConfigSnapshot> fetch = executor.submit(() -> racing.snapshot("order-service", "default", null, false));
+            await(loaded);
+            write("order-service.properties", "order.page-size=30\n");
+            racing.reload();
+            reloaded.countDown();
+
+            assertEquals("30", fetch.get().environment().getPropertySources().get(0).getSource().get("order.page-size"));
+        }
+        assertEquals("30", racing.findOne("order-service", "default", null).getPropertySources().get(0).getSource()
+                .get("order.page-size"));
+    }
+
+    @Test
+    void returnedEnvironmentDoesNotShareTheCachedPropertySources() {
+        Environment environment = repository.findOne("order-service", "default", null);
+        environment.getPropertySources().clear();
+
+        assertNotSame(environment, repository.findOne("order-service", "default", null));
+        assertEquals(1, repository.findOne("order-service", "default", null).getPropertySources().size());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(String file, String content) throws IOException {
+        Files.writeString(repo.resolve(file), content);
+    }
+}
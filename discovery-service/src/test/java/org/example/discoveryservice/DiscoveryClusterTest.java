@@ -0,0 +1,173 @@
+package org.example.discoveryservice;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Three discovery-service peers in the cluster profile and many simulated clients talking to them
+ * over the Eureka REST API. Measures how long a registration made on one peer takes to be visible
+ * on the others, and compares the size of a delta fetch with a full registry fetch.
+ * Numbers are printed; the assertions only check that propagation happens and deltas stay small.
+ * <p>
+ * Opt-in: {@code mvn test -Dtest=DiscoveryClusterTest -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class DiscoveryClusterTest {
+
+    private static final int PEERS = 3;
+    private static final int CLIENTS = 150;
+    private static final String APP = "SIMULATED-CLIENT";
+
+    private static final List<ConfigurableApplicationContext> peers = new ArrayList<>();
+    private static final List<String> urls = new ArrayList<>();
+    // HTTP/1.1 like the Eureka clients: the h2c upgrade attempted by default slowed the registrations down
+    private static final HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).connectTimeout(Duration.ofSeconds(2)).build();
+
+    @BeforeAll
+    static void startCluster() throws IOException {
+        List<Integer> ports = new ArrayList<>();
+        for (int i = 0; i < PEERS; i++) {
+            ports.add(freePort());
+            urls.add("http://localhost:" + ports.get(i) + "/eureka");
+        }
+        for (int port : ports) {
+            peers.add(new SpringApplicationBuilder(DiscoveryServiceApplication.class)
+                    .profiles("cluster")
+                    .run("--server.port=" + port,
+                            "--eureka.client.service-url.defaultZone=" + String.join(",", urls),
+                            "--eureka.server.registry-sync-retries=0",
+                            "--eureka.server.response-cache-update-interval-ms=1000",
+                            "--eureka.server.retention-time-in-m-s-in-delta-queue=3000",
+                            "--eureka.server.delta-retention-timer-interval-in-ms=500"));
+        }
+    }
+
+    @AfterAll
+    static void stopCluster() {
+        Collections.reverse(peers);
+        peers.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void registrationsPropagateToEveryPeer() throws Exception {
+        List<Long> propagationMillis = Collections.synchronizedList(new ArrayList<>());
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> registrations = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                int client = i;
+                registrations.add(clients.submit(() -> {
+                    // clients start over a few seconds and register with one peer each, like real
+                    // clients spread over the peer list
+                    Thread.sleep(client * 20L);
+                    String home = urls.get(client % PEERS);
+                    long start = System.nanoTime();
+                    register(home, client);
+                    for (String peer : urls) {
+                        if (!peer.equals(home)) {
+                            awaitInstance(peer, instanceId(client));
+                        }
+                    }
+                    propagationMillis.add(Duration.ofNanos(System.nanoTime() - start).toMillis());
+                    return null;
+                }));
+            }
+            for (Future<?> registration : registrations) {
+                registration.get();
+            }
+        }
+
+        List<Long> sorted = propagationMillis.stream().sorted().toList();
+        System.out.printf("%d registrations visible on all %d peers: p50 %d ms, p99 %d ms, max %d ms%n",
+                sorted.size(), PEERS, sorted.get(sorted.size() / 2), sorted.get(sorted.size() * 99 / 100),
+                sorted.get(sorted.size() - 1));
+        assertEquals(CLIENTS, sorted.size());
+
+        // let the registrations leave the delta queue, then change a single instance
+        Thread.sleep(5000);
+        long start = System.nanoTime();
+        HttpResponse<String> statusChange = send(HttpRequest.newBuilder(
+                URI.create(urls.get(0) + "/apps/" + APP + "/" + instanceId(0) + "/status?value=OUT_OF_SERVICE"))
+                .PUT(HttpRequest.BodyPublishers.noBody()));
+        assertEquals(200, statusChange.statusCode());
+        String delta = awaitDeltaContaining(urls.get(PEERS - 1), "OUT_OF_SERVICE");
+        long deltaMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+        String full = get(urls.get(PEERS - 1) + "/apps").body();
+
+        System.out.printf("status change in the delta of another peer after %d ms; delta %d bytes, full registry %d bytes%n",
+                deltaMillis, delta.length(), full.length());
+        assertTrue(delta.length() * 10 < full.length(), "a delta carries the changes, not the fleet");
+    }
+
+    private static void register(String peer, int client) throws IOException, InterruptedException {
+        String instance = """
+                {"instance": {
+                  "instanceId": "%1$s", "hostName": "10.0.%2$d.%3$d", "app": "%4$s", "ipAddr": "10.0.%2$d.%3$d",
+                  "status": "UP", "port": {"$": 8080, "@enabled": "true"},
+                  "dataCenterInfo": {"@class": "com.netflix.appinfo.InstanceInfo$DefaultDataCenterInfo", "name": "MyOwn"}
+                }}""".formatted(instanceId(client), client / 250, client % 250, APP);
+        HttpResponse<String> response = send(HttpRequest.newBuilder(URI.create(peer + "/apps/" + APP))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(instance)));
+        assertEquals(204, response.statusCode(), response.body());
+    }
+
+    private static void awaitInstance(String peer, String instanceId) throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (get(peer + "/apps/" + APP + "/" + instanceId).statusCode() != 200) {
+            assertTrue(System.nanoTime() < deadline, instanceId + " not replicated to " + peer);
+            Thread.sleep(50);
+        }
+    }
+
+    private static String awaitDeltaContaining(String peer, String text) throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (true) {
+            HttpResponse<String> delta = get(peer + "/apps/delta");
+            if (delta.statusCode() == 200 && delta.body().contains(text)) {
+                return delta.body();
+            }
+            assertTrue(System.nanoTime() < deadline, "change not in the delta of " + peer);
+            Thread.sleep(50);
+        }
+    }
+
+    private static HttpResponse<String> get(String url) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(url)).GET());
+    }
+
+    private static HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return http.send(request.header("Accept", "application/json").timeout(Duration.ofSeconds(5)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String instanceId(int client) {
+        return "simulated-" + client;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package ma.enset.gateway.config;
+
+import java.time.Duration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import ma.enset.gateway.limit.ConcurrencyLimitFilter;
+import ma.enset.gateway.limit.ConcurrencyLimiter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Adaptive concurrency limit per route, see {@link ConcurrencyLimitFilter}. Each route starts at
+ * {@code initial-limit} concurrent requests and adapts between {@code min-limit} and {@code max-limit}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "gateway.concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    public ConcurrencyLimitFilter concurrencyLimitFilter(
+            MeterRegistry meterRegistry,
+            @Value("${gateway.concurrency-limit.initial-limit:20}") int initialLimit,
+            @Value("${gateway.concurrency-limit.min-limit:4}") int minLimit,
+            @Value("${gateway.concurrency-limit.max-limit:200}") int maxLimit,
+            @Value("${gateway.concurrency-limit.smoothing:0.2}") double smoothing,
+            @Value("${gateway.concurrency-limit.rtt-tolerance:1.5}") double rttTolerance,
+            @Value("${gateway.concurrency-limit.long-window:600}") int longWindow,
+            @Value("${gateway.concurrency-limit.admin-reserve:0.2}") double adminReserve,
+            @Value("${gateway.concurrency-limit.max-queued:50}") int maxQueued,
+            @Value("${gateway.concurrency-limit.max-wait:100ms}") Duration maxWait) {
+        return new ConcurrencyLimitFilter(routeId -> new ConcurrencyLimiter(initialLimit, minLimit, maxLimit,
+                smoothing, rttTolerance, longWindow, adminReserve, maxQueued, maxWait), meterRegistry);
+    }
+}
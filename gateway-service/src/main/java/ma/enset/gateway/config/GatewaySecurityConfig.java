@@ -2,8 +2,12 @@ package ma.enset.gateway.config;
 
 import java.util.List;
 
+import ma.enset.commons.tracing.TraceViewerEndpoint;
+import ma.enset.gateway.security.AdminAuthorities;
+import org.springframework.boot.actuate.autoconfigure.security.reactive.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
@@ -23,6 +27,9 @@ public class GatewaySecurityConfig {
                 .csrf(ServerHttpSecurity.CsrfSpec::disable)
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .authorizeExchange(exchange -> exchange
+                        // the traces carry the SQL statements of the requests
+                        .matchers(EndpointRequest.to(TraceViewerEndpoint.class)).access((authentication, context) ->
+                                authentication.map(principal -> new AuthorizationDecision(AdminAuthorities.isAdmin(principal))))
                         .anyExchange().authenticated()
                 )
                 .oauth2ResourceServer(oauth2 ->
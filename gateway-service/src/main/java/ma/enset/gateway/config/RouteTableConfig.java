@@ -0,0 +1,37 @@
+package ma.enset.gateway.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import ma.enset.gateway.routing.PrefixRoutePredicateHandlerMapping;
+import ma.enset.gateway.routing.RegistryChangeRouteRefresher;
+import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import org.springframework.cloud.gateway.config.GlobalCorsProperties;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.gateway.route.RouteDefinitionLocator;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+@Configuration
+public class RouteTableConfig {
+
+    // replaces the auto-configured RoutePredicateHandlerMapping (@ConditionalOnMissingBean)
+    @Bean
+    public PrefixRoutePredicateHandlerMapping routePredicateHandlerMapping(FilteringWebHandler webHandler,
+                                                                           RouteLocator routeLocator,
+                                                                           RouteDefinitionLocator routeDefinitionLocator,
+                                                                           GlobalCorsProperties globalCorsProperties,
+                                                                           Environment environment,
+                                                                           MeterRegistry meterRegistry) {
+        return new PrefixRoutePredicateHandlerMapping(webHandler, routeLocator, routeDefinitionLocator,
+                globalCorsProperties, environment, meterRegistry);
+    }
+
+    // the default RouteRefreshListener is disabled in application.yml
+    @Bean
+    public RegistryChangeRouteRefresher registryChangeRouteRefresher(ReactiveDiscoveryClient discoveryClient,
+                                                                     ApplicationEventPublisher publisher) {
+        return new RegistryChangeRouteRefresher(discoveryClient, publisher);
+    }
+}
@@ -0,0 +1,127 @@
+package ma.enset.gateway.limit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import ma.enset.gateway.security.AdminAuthorities;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Applies a {@link ConcurrencyLimiter} per route, so that a slow service gets fewer concurrent
+ * requests instead of all of them until its thread and connection pools are exhausted. Rejected
+ * requests get a 503 with a {@code Retry-After} header without reaching the service.
+ * <p>
+ * Admin requests have priority. Event streams are not limited: they stay open for minutes and
+ * would hold a permit, and skew the latency, for their whole duration.
+ */
+public class ConcurrencyLimitFilter implements GlobalFilter, Ordered {
+
+    private static final Log log = LogFactory.getLog(ConcurrencyLimitFilter.class);
+
+    private final Function<String, ConcurrencyLimiter> limiterFactory;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, ConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    public ConcurrencyLimitFilter(Function<String, ConcurrencyLimiter> limiterFactory, MeterRegistry meterRegistry) {
+        this.limiterFactory = limiterFactory;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        if (route == null || isEventStream(exchange)) {
+            return chain.filter(exchange);
+        }
+        ConcurrencyLimiter limiter = limiters.computeIfAbsent(route.getId(), this::createLimiter);
+        return exchange.getPrincipal()
+                .map(AdminAuthorities::isAdmin)
+                .defaultIfEmpty(false)
+                .flatMap(admin -> limiter.acquire(admin)
+                        .map(permit -> forward(exchange, chain, limiter, permit))
+                        .switchIfEmpty(Mono.fromSupplier(() -> reject(exchange, route, admin))))
+                .flatMap(Function.identity());
+    }
+
+    @Override
+    public int getOrder() {
+        // outside the response writer, so that the latency includes the response body
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+    }
+
+    private Mono<Void> forward(ServerWebExchange exchange, GatewayFilterChain chain,
+                               ConcurrencyLimiter limiter, ConcurrencyLimiter.Permit permit) {
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> {
+                    if (signal == SignalType.CANCEL) {
+                        limiter.release(permit, -1, false);
+                    } else {
+                        limiter.release(permit, System.nanoTime() - start,
+                                signal == SignalType.ON_ERROR || isOverloaded(exchange.getResponse().getStatusCode()));
+                    }
+                });
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange, Route route, boolean admin) {
+        if (log.isDebugEnabled()) {
+            log.debug("Rejected " + (admin ? "admin " : "") + "request to route " + route.getId()
+                    + ": concurrency limit reached");
+        }
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+        return response.setComplete();
+    }
+
+    private ConcurrencyLimiter createLimiter(String routeId) {
+        ConcurrencyLimiter limiter = limiterFactory.apply(routeId);
+        Gauge.builder("gateway.concurrency.limit", limiter, ConcurrencyLimiter::getLimit)
+                .description("Current concurrency limit of the route")
+                .tag("route", routeId)
+                .register(meterRegistry);
+        Gauge.builder("gateway.concurrency.inflight", limiter, ConcurrencyLimiter::getInflight)
+                .description("Requests in flight to the route")
+                .tag("route", routeId)
+                .register(meterRegistry);
+        Gauge.builder("gateway.concurrency.queued", limiter, ConcurrencyLimiter::getQueued)
+                .description("Requests waiting for a permit of the route")
+                .tag("route", routeId)
+                .register(meterRegistry);
+        for (boolean priority : new boolean[] {false, true}) {
+            FunctionCounter.builder("gateway.concurrency.rejected", limiter, l -> l.getRejected(priority))
+                    .description("Requests rejected by the concurrency limit of the route")
+                    .tags("route", routeId, "priority", priority ? "admin" : "default")
+                    .register(meterRegistry);
+        }
+        return limiter;
+    }
+
+    private static boolean isEventStream(ServerWebExchange exchange) {
+        return exchange.getRequest().getHeaders().getAccept().contains(MediaType.TEXT_EVENT_STREAM);
+    }
+
+    private static boolean isOverloaded(HttpStatusCode status) {
+        return status != null && (status.value() == 502 || status.value() == 503 || status.value() == 504);
+    }
+}
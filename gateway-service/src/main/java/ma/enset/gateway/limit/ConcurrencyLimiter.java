@@ -0,0 +1,161 @@
+package ma.enset.gateway.limit;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Limits the requests in flight to one downstream route to an adaptive {@link GradientLimit}.
+ * <p>
+ * A share of the limit is reserved for priority (admin) requests. Requests over their limit wait
+ * in a short bounded queue, priority requests first, and are rejected when the queue is full or
+ * when no permit is freed within the maximum wait: failing fast leaves the capacity to the
+ * requests that can still be served in time.
+ */
+public class ConcurrencyLimiter {
+
+    private final GradientLimit limit;
+    private final double priorityReserve;
+    private final int maxQueued;
+    private final Duration maxWait;
+    private final ArrayDeque<Waiter> priorityQueue = new ArrayDeque<>();
+    private final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong rejectedPriority = new AtomicLong();
+    private int inflight;
+
+    public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double smoothing, double rttTolerance,
+                              int longWindow, double priorityReserve, int maxQueued, Duration maxWait) {
+        this.limit = new GradientLimit(initialLimit, minLimit, maxLimit, smoothing, rttTolerance, longWindow);
+        this.priorityReserve = priorityReserve;
+        this.maxQueued = maxQueued;
+        this.maxWait = maxWait;
+    }
+
+    /**
+     * A permit to forward the request, or an empty {@code Mono} if the request must be rejected.
+     * The permit must be {@linkplain #release released} once the request completes.
+     */
+    public Mono<Permit> acquire(boolean priority) {
+        Waiter waiter;
+        synchronized (this) {
+            if (inflight < admitted(priority)) {
+                inflight++;
+                return Mono.just(new Permit());
+            }
+            if (priorityQueue.size() + queue.size() >= maxQueued || maxWait.isZero()) {
+                reject(priority);
+                return Mono.empty();
+            }
+            waiter = new Waiter(priority);
+            (priority ? priorityQueue : queue).add(waiter);
+        }
+        return waiter.sink.asMono()
+                .timeout(maxWait, Mono.defer(() -> timedOut(waiter)))
+                .doOnCancel(() -> abandon(waiter));
+    }
+
+    /**
+     * @param rttNanos latency of the request, or a negative value when it should not be sampled
+     *                 (e.g. cancelled by the client)
+     * @param dropped  whether the request failed because the downstream service is overloaded
+     */
+    public void release(Permit permit, long rttNanos, boolean dropped) {
+        if (!permit.released.compareAndSet(false, true)) {
+            return;
+        }
+        List<Waiter> granted = new ArrayList<>();
+        synchronized (this) {
+            inflight--;
+            if (rttNanos >= 0) {
+                limit.update(rttNanos, inflight + 1, dropped);
+            }
+            grant(priorityQueue, granted);
+            grant(queue, granted);
+        }
+        for (Waiter waiter : granted) {
+            waiter.sink.tryEmitValue(waiter.permit);
+        }
+    }
+
+    public synchronized int getLimit() {
+        return limit.getLimit();
+    }
+
+    public synchronized int getInflight() {
+        return inflight;
+    }
+
+    public synchronized int getQueued() {
+        return priorityQueue.size() + queue.size();
+    }
+
+    public long getRejected(boolean priority) {
+        return (priority ? rejectedPriority : rejected).get();
+    }
+
+    private int admitted(boolean priority) {
+        int current = limit.getLimit();
+        if (priority) {
+            return current;
+        }
+        return Math.max(1, current - (int) Math.ceil(current * priorityReserve));
+    }
+
+    private void grant(ArrayDeque<Waiter> waiters, List<Waiter> granted) {
+        while (!waiters.isEmpty() && inflight < admitted(waiters.peek().priority)) {
+            Waiter waiter = waiters.poll();
+            inflight++;
+            waiter.permit = new Permit();
+            granted.add(waiter);
+        }
+    }
+
+    private Mono<Permit> timedOut(Waiter waiter) {
+        synchronized (this) {
+            if ((waiter.priority ? priorityQueue : queue).remove(waiter)) {
+                reject(waiter.priority);
+                return Mono.empty();
+            }
+        }
+        // granted while timing out
+        return Mono.just(waiter.permit);
+    }
+
+    private void abandon(Waiter waiter) {
+        synchronized (this) {
+            if ((waiter.priority ? priorityQueue : queue).remove(waiter)) {
+                return;
+            }
+        }
+        if (waiter.permit != null) {
+            release(waiter.permit, -1, false);
+        }
+    }
+
+    private void reject(boolean priority) {
+        (priority ? rejectedPriority : rejected).incrementAndGet();
+    }
+
+    public static final class Permit {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+    }
+
+    private static final class Waiter {
+
+        private final boolean priority;
+        private final Sinks.One<Permit> sink = Sinks.one();
+        private volatile Permit permit;
+
+        private Waiter(boolean priority) {
+            this.priority = priority;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package ma.enset.gateway.limit;
+
+/**
+ * Concurrency limit adjusted from the latency of the completed requests, after the Gradient2
+ * algorithm of Netflix's concurrency-limits library.
+ * <p>
+ * A long-term average of the round-trip time stands for the latency of the downstream service when
+ * it is not overloaded, a short-term average for its current latency. Their ratio (the gradient,
+ * between 0.5 and 1) shrinks the limit as soon as requests start queueing downstream, while a
+ * headroom of {@code sqrt(limit)} lets it grow again when the latency stays flat. The long-term
+ * average drifts up under a sustained overload, which the tolerance absorbs, and is pulled down
+ * quickly once the service is fast again. Requests that fail (timeouts, 5xx from an exhausted
+ * service) cut the limit directly.
+ * <p>
+ * Not thread-safe: updated under the lock of its {@link ConcurrencyLimiter}.
+ */
+final class GradientLimit {
+
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final int SHORT_WINDOW = 10;
+    // samples averaged before the long-term average becomes exponential, so that the first one does not set it
+    private static final int WARM_UP = 10;
+    // lowest gradient: one slow burst halves the limit at most
+    private static final double MIN_GRADIENT = 0.5;
+    // long-term average this many times over the short-term one: the service recovered from an overload
+    private static final double RECOVERED_RATIO = 2.0;
+    private static final double RECOVERY_DECAY = 0.95;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final double rttTolerance;
+    private final double longDecay;
+
+    private double limit;
+    private double shortRtt;
+    private double longRtt;
+    private int samples;
+
+    GradientLimit(int initialLimit, int minLimit, int maxLimit, double smoothing, double rttTolerance, int longWindow) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Expected 1 <= min-limit <= initial-limit <= max-limit");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.rttTolerance = rttTolerance;
+        this.longDecay = 2.0 / (longWindow + 1);
+        this.limit = initialLimit;
+    }
+
+    /**
+     * @param rttNanos latency of the completed request
+     * @param inflight requests in flight when it completed
+     * @param dropped  whether the request failed in a way that signals an overloaded service
+     */
+    void update(long rttNanos, int inflight, boolean dropped) {
+        if (dropped) {
+            limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+            return;
+        }
+        double rtt = rttNanos;
+        if (samples == 0) {
+            shortRtt = rtt;
+            longRtt = rtt;
+        } else {
+            shortRtt += (rtt - shortRtt) * 2.0 / (SHORT_WINDOW + 1);
+            longRtt += (rtt - longRtt) * (samples < WARM_UP ? 1.0 / (samples + 1) : longDecay);
+            // rather than waiting for the long window to forget the overloaded latencies
+            if (longRtt > shortRtt * RECOVERED_RATIO) {
+                longRtt *= RECOVERY_DECAY;
+            }
+        }
+        samples++;
+        if (inflight < limit / 2) {
+            // too few requests to tell whether the limit is too high
+            return;
+        }
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, rttTolerance * longRtt / shortRtt));
+        double target = limit * gradient + Math.sqrt(limit);
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - smoothing) + target * smoothing));
+    }
+
+    int getLimit() {
+        return (int) limit;
+    }
+}
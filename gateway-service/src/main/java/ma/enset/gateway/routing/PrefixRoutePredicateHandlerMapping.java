@@ -0,0 +1,118 @@
+package ma.enset.gateway.routing;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.cloud.gateway.config.GlobalCorsProperties;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.gateway.handler.RoutePredicateHandlerMapping;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.cloud.gateway.route.RouteDefinitionLocator;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_PREDICATE_ROUTE_ATTR;
+
+/**
+ * Route lookup backed by a {@link PrefixRouteTable} instead of a linear scan over every route.
+ * <p>
+ * The table is recompiled each time the caching route locator finishes a refresh and swapped
+ * in atomically; in-flight lookups keep using the table they started with. Until the first
+ * table is compiled, lookups fall back to the default linear behaviour.
+ */
+public class PrefixRoutePredicateHandlerMapping extends RoutePredicateHandlerMapping
+        implements ApplicationListener<RefreshRoutesResultEvent> {
+
+    private static final Log log = LogFactory.getLog(PrefixRoutePredicateHandlerMapping.class);
+
+    private final RouteLocator routeLocator;
+    private final RouteDefinitionLocator routeDefinitionLocator;
+    private final AtomicReference<PrefixRouteTable> table = new AtomicReference<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final Timer rebuildTimer;
+    private final Timer matchTimer;
+
+    public PrefixRoutePredicateHandlerMapping(FilteringWebHandler webHandler,
+                                              RouteLocator routeLocator,
+                                              RouteDefinitionLocator routeDefinitionLocator,
+                                              GlobalCorsProperties globalCorsProperties,
+                                              Environment environment,
+                                              MeterRegistry meterRegistry) {
+        super(webHandler, routeLocator, globalCorsProperties, environment);
+        this.routeLocator = routeLocator;
+        this.routeDefinitionLocator = routeDefinitionLocator;
+        this.rebuildTimer = Timer.builder("gateway.routes.table.rebuild")
+                .description("Time spent compiling the prefix route table")
+                .register(meterRegistry);
+        this.matchTimer = Timer.builder("gateway.routes.table.match")
+                .description("Time spent matching a request against the prefix route table")
+                .register(meterRegistry);
+        Gauge.builder("gateway.routes.table.size", table, t -> t.get() == null ? 0 : t.get().size())
+                .description("Number of routes in the current prefix route table")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void onApplicationEvent(RefreshRoutesResultEvent event) {
+        if (!event.isSuccess()) {
+            // keep serving the previous table, the route locator kept its previous routes too
+            return;
+        }
+        long current = generation.incrementAndGet();
+        long start = System.nanoTime();
+        Mono.zip(routeLocator.getRoutes().collectList(),
+                        routeDefinitionLocator.getRouteDefinitions().collectMap(RouteDefinition::getId))
+                .map(tuple -> PrefixRouteTable.compile(tuple.getT1(), tuple.getT2()))
+                .subscribe(compiled -> swap(current, compiled, start),
+                        e -> log.warn("Could not compile route table, keeping the previous one", e));
+    }
+
+    private synchronized void swap(long compiledGeneration, PrefixRouteTable compiled, long start) {
+        if (compiledGeneration != generation.get()) {
+            // a newer refresh is already being compiled
+            return;
+        }
+        table.set(compiled);
+        rebuildTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (log.isDebugEnabled()) {
+            log.debug("Route table rebuilt: " + compiled.size() + " routes, "
+                    + compiled.indexedSegments() + " indexed prefixes");
+        }
+    }
+
+    @Override
+    protected Mono<Route> lookupRoute(ServerWebExchange exchange) {
+        PrefixRouteTable current = table.get();
+        if (current == null) {
+            return super.lookupRoute(exchange);
+        }
+        long start = System.nanoTime();
+        return Flux.fromIterable(current.candidates(exchange.getRequest().getPath().pathWithinApplication()))
+                .filterWhen(route -> {
+                    exchange.getAttributes().put(GATEWAY_PREDICATE_ROUTE_ATTR, route.getId());
+                    return Mono.from(route.getPredicate().apply(exchange))
+                            .onErrorResume(e -> {
+                                log.error("Error applying predicate for route: " + route.getId(), e);
+                                return Mono.just(false);
+                            });
+                })
+                .next()
+                .map(route -> {
+                    validateRoute(route, exchange);
+                    return route;
+                })
+                .doFinally(signal -> matchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+    }
+}
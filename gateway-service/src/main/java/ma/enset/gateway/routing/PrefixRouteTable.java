@@ -0,0 +1,137 @@
+package ma.enset.gateway.routing;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.http.server.PathContainer;
+
+/**
+ * Immutable snapshot of the gateway routes indexed by the first literal path segment
+ * of their {@code Path} predicate (e.g. {@code /product-service/**} is indexed under
+ * {@code product-service}).
+ * <p>
+ * Routes whose path cannot be reduced to a literal leading segment are kept in an
+ * unindexed list that is appended to every lookup, so the original route order and
+ * predicate semantics are preserved: the table only narrows the candidates, the
+ * predicates are still evaluated by the handler mapping.
+ */
+public final class PrefixRouteTable {
+
+    private static final String PATH_PREDICATE = "Path";
+    private static final String MATCH_TRAILING_SLASH = "matchTrailingSlash";
+
+    private final Map<String, List<Route>> bySegment;
+    private final List<Route> unindexed;
+    private final int size;
+
+    private PrefixRouteTable(Map<String, List<Route>> bySegment, List<Route> unindexed, int size) {
+        this.bySegment = bySegment;
+        this.unindexed = unindexed;
+        this.size = size;
+    }
+
+    /**
+     * @param routes      routes in the order the route locator returns them
+     * @param definitions route definitions keyed by route id
+     */
+    public static PrefixRouteTable compile(List<Route> routes, Map<String, RouteDefinition> definitions) {
+        List<Set<String>> segments = new ArrayList<>(routes.size());
+        Set<String> keys = new LinkedHashSet<>();
+        List<Route> unindexed = new ArrayList<>();
+        for (Route route : routes) {
+            Set<String> routeSegments = leadingSegments(definitions.get(route.getId()));
+            segments.add(routeSegments);
+            keys.addAll(routeSegments);
+            if (routeSegments.isEmpty()) {
+                unindexed.add(route);
+            }
+        }
+
+        Map<String, List<Route>> bySegment = new HashMap<>();
+        for (String key : keys) {
+            List<Route> candidates = new ArrayList<>();
+            for (int i = 0; i < routes.size(); i++) {
+                Set<String> routeSegments = segments.get(i);
+                if (routeSegments.isEmpty() || routeSegments.contains(key)) {
+                    candidates.add(routes.get(i));
+                }
+            }
+            bySegment.put(key, List.copyOf(candidates));
+        }
+        return new PrefixRouteTable(Map.copyOf(bySegment), List.copyOf(unindexed), routes.size());
+    }
+
+    public List<Route> candidates(PathContainer path) {
+        String segment = firstSegment(path);
+        if (segment == null) {
+            return unindexed;
+        }
+        return bySegment.getOrDefault(segment, unindexed);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int indexedSegments() {
+        return bySegment.size();
+    }
+
+    private static String firstSegment(PathContainer path) {
+        for (PathContainer.Element element : path.elements()) {
+            if (element instanceof PathContainer.PathSegment segment) {
+                return segment.valueToMatch();
+            }
+        }
+        return null;
+    }
+
+    private static Set<String> leadingSegments(RouteDefinition definition) {
+        if (definition == null) {
+            return Set.of();
+        }
+        // predicates are ANDed, so any single Path predicate is enough to index the route
+        for (PredicateDefinition predicate : definition.getPredicates()) {
+            if (!PATH_PREDICATE.equalsIgnoreCase(predicate.getName())) {
+                continue;
+            }
+            Set<String> segments = new LinkedHashSet<>();
+            boolean literal = true;
+            for (Map.Entry<String, String> arg : predicate.getArgs().entrySet()) {
+                if (MATCH_TRAILING_SLASH.equals(arg.getKey())) {
+                    continue;
+                }
+                String segment = literalLeadingSegment(arg.getValue());
+                if (segment == null) {
+                    literal = false;
+                    break;
+                }
+                segments.add(segment);
+            }
+            if (literal && !segments.isEmpty()) {
+                return segments;
+            }
+        }
+        return Set.of();
+    }
+
+    private static String literalLeadingSegment(String pattern) {
+        if (pattern == null || !pattern.startsWith("/")) {
+            return null;
+        }
+        int end = pattern.indexOf('/', 1);
+        String segment = end < 0 ? pattern.substring(1) : pattern.substring(1, end);
+        if (segment.isEmpty() || segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0
+                || segment.indexOf('{') >= 0) {
+            return null;
+        }
+        return segment;
+    }
+}
@@ -0,0 +1,87 @@
+package ma.enset.gateway.routing;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import org.springframework.cloud.client.discovery.event.HeartbeatEvent;
+import org.springframework.cloud.client.discovery.event.InstanceRegisteredEvent;
+import org.springframework.cloud.client.discovery.event.ParentHeartbeatEvent;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import reactor.core.publisher.Mono;
+
+/**
+ * Replacement for the gateway's {@code RouteRefreshListener}.
+ * <p>
+ * The default listener refreshes the routes on every Eureka heartbeat (every registry fetch),
+ * even when nothing changed. This one takes a snapshot of the registry (services and their
+ * instances) on each heartbeat and only publishes a {@link RefreshRoutesEvent} when the
+ * snapshot differs from the previous one. Like the default listener, it ignores the refresh of
+ * other contexts (e.g. the LoadBalancer and Feign child contexts, whose events reach the parent).
+ */
+public class RegistryChangeRouteRefresher implements ApplicationListener<ApplicationEvent>, ApplicationContextAware {
+
+    private static final Log log = LogFactory.getLog(RegistryChangeRouteRefresher.class);
+
+    private final ReactiveDiscoveryClient discoveryClient;
+    private final ApplicationEventPublisher publisher;
+    private final AtomicReference<Set<String>> lastSnapshot = new AtomicReference<>();
+    private ApplicationContext applicationContext;
+
+    public RegistryChangeRouteRefresher(ReactiveDiscoveryClient discoveryClient,
+                                        ApplicationEventPublisher publisher) {
+        this.discoveryClient = discoveryClient;
+        this.publisher = publisher;
+    }
+
+    @Override
+    public void setApplicationContext(ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+        if (event instanceof ContextRefreshedEvent refreshed) {
+            if (refreshed.getApplicationContext() == applicationContext) {
+                refresh(true);
+            }
+        }
+        else if (event instanceof RefreshScopeRefreshedEvent) {
+            refresh(true);
+        }
+        else if (event instanceof HeartbeatEvent || event instanceof ParentHeartbeatEvent
+                || event instanceof InstanceRegisteredEvent) {
+            refresh(false);
+        }
+    }
+
+    private void refresh(boolean force) {
+        snapshot().subscribe(current -> {
+            Set<String> previous = lastSnapshot.getAndSet(current);
+            if (force || !current.equals(previous)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Service registry changed, refreshing routes (" + current.size() + " entries)");
+                }
+                publisher.publishEvent(new RefreshRoutesEvent(this));
+            }
+        }, e -> log.warn("Could not read the service registry, keeping the current routes", e));
+    }
+
+    private Mono<Set<String>> snapshot() {
+        return discoveryClient.getServices()
+                .flatMap(serviceId -> discoveryClient.getInstances(serviceId)
+                        .map(instance -> serviceId + '|' + instance.getInstanceId() + '|' + instance.getUri())
+                        .defaultIfEmpty(serviceId))
+                .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,43 @@
+package ma.enset.gateway.security;
+
+import java.util.Collection;
+import java.util.Map;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+/**
+ * Recognizes admin principals at the gateway, which validates tokens without mapping the
+ * Keycloak roles to authorities the way the services do.
+ */
+public final class AdminAuthorities {
+
+    private static final String ADMIN_ROLE = "ADMIN";
+    private static final String CLIENT_ID = "microservices-app";
+
+    private AdminAuthorities() {
+    }
+
+    public static boolean isAdmin(Object principal) {
+        if (!(principal instanceof Authentication authentication)) {
+            return false;
+        }
+        if (authentication.getAuthorities().stream().anyMatch(a -> ("SCOPE_" + ADMIN_ROLE).equals(a.getAuthority()))) {
+            return true;
+        }
+        if (authentication.getPrincipal() instanceof Jwt jwt) {
+            Map<String, Object> realmAccess = jwt.getClaim("realm_access");
+            if (realmAccess != null && hasAdminRole(realmAccess.get("roles"))) {
+                return true;
+            }
+            Map<String, Object> resourceAccess = jwt.getClaim("resource_access");
+            return resourceAccess != null && resourceAccess.get(CLIENT_ID) instanceof Map<?, ?> client
+                    && hasAdminRole(client.get("roles"));
+        }
+        return false;
+    }
+
+    private static boolean hasAdminRole(Object roles) {
+        return roles instanceof Collection<?> values && values.contains(ADMIN_ROLE);
+    }
+}
@@ -0,0 +1,51 @@
+package ma.enset.gateway.config;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.mockJwt;
+
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "tracing.local.file="
+})
+@AutoConfigureWebTestClient
+class GatewaySecurityConfigTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    void traceViewerIsForAdminsOnly() {
+        webTestClient.get().uri("/actuator/traces").exchange()
+                .expectStatus().isUnauthorized();
+
+        webTestClient.mutateWith(mockJwt().authorities(new SimpleGrantedAuthority("SCOPE_CLIENT")))
+                .get().uri("/actuator/traces").exchange()
+                .expectStatus().isForbidden();
+
+        webTestClient.mutateWith(mockJwt().authorities(new SimpleGrantedAuthority("SCOPE_ADMIN")))
+                .get().uri("/actuator/traces").exchange()
+                .expectStatus().isOk();
+
+        // Keycloak realm role, as sent by the frontend
+        webTestClient.mutateWith(mockJwt().jwt(jwt -> jwt.claim("realm_access", Map.of("roles", List.of("ADMIN")))))
+                .get().uri("/actuator/traces").exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    void otherActuatorEndpointsOnlyNeedAnAuthenticatedUser() {
+        webTestClient.mutateWith(mockJwt().authorities(new SimpleGrantedAuthority("SCOPE_CLIENT")))
+                .get().uri("/actuator/health").exchange()
+                .expectStatus().isOk();
+    }
+}
@@ -0,0 +1,71 @@
+package ma.enset.gateway.limit;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+class ConcurrencyLimitFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(
+            routeId -> new ConcurrencyLimiter(5, 5, 5, 0.2, 1.5, 100, 0.2, 0, Duration.ZERO), meterRegistry);
+    private final Sinks.Empty<Void> downstream = Sinks.empty();
+
+    @Test
+    void requestsOverTheLimitGet503() {
+        for (int i = 0; i < 4; i++) {
+            filter.filter(exchange(null), e -> downstream.asMono()).subscribe();
+        }
+        ServerWebExchange rejected = exchange(null);
+        filter.filter(rejected, e -> Mono.error(new AssertionError("must not be forwarded"))).block();
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getResponse().getStatusCode());
+        assertEquals("1", rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+
+        ServerWebExchange admin = exchange(jwt(Map.of("realm_access", Map.of("roles", List.of("ADMIN")))));
+        filter.filter(admin, e -> Mono.empty()).block();
+        assertNull(admin.getResponse().getStatusCode());
+
+        assertEquals(4, meterRegistry.get("gateway.concurrency.inflight").gauge().value());
+        assertEquals(1, meterRegistry.get("gateway.concurrency.rejected").tag("priority", "default")
+                .functionCounter().count());
+
+        downstream.tryEmitEmpty();
+        assertEquals(0, meterRegistry.get("gateway.concurrency.inflight").gauge().value());
+    }
+
+    private static ServerWebExchange exchange(JwtAuthenticationToken principal) {
+        MockServerWebExchange exchange = MockServerWebExchange.builder(MockServerHttpRequest.get("/order-service/orders"))
+                .principal(principal)
+                .build();
+        exchange.getAttributes().put(GATEWAY_ROUTE_ATTR, Route.async()
+                .id("order-service")
+                .uri(URI.create("lb://order-service"))
+                .predicate(e -> true)
+                .build());
+        return exchange;
+    }
+
+    private static JwtAuthenticationToken jwt(Map<String, Object> claims) {
+        Jwt.Builder jwt = Jwt.withTokenValue("token").header("alg", "none").subject("user");
+        claims.forEach(jwt::claim);
+        return new JwtAuthenticationToken(jwt.build());
+    }
+}
@@ -0,0 +1,167 @@
+package ma.enset.gateway.limit;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Many clients against a simulated service that processes {@value #CAPACITY} requests at a time:
+ * past that, every request in flight gets slower, like a service whose pools are exhausted.
+ * Without a limit every request is forwarded and the latency of all of them grows; with the limit
+ * the excess is rejected and the forwarded requests keep a latency close to the unloaded one.
+ * Numbers are printed, the assertions only check the trend.
+ * <p>
+ * Opt-in: {@code mvn test -Dtest=ConcurrencyLimitOverloadTest -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ConcurrencyLimitOverloadTest {
+
+    private static final int CAPACITY = 8;
+    private static final long SERVICE_TIME_MILLIS = 10;
+    private static final int CLIENTS = 64;
+    private static final int ADMINS = 4;
+    private static final Duration DURATION = Duration.ofSeconds(2);
+    private static final Duration WARM_UP = Duration.ofMillis(500);
+
+    @Test
+    void limitKeepsLatencyLowUnderOverload() throws InterruptedException {
+        // first calls are slow (class loading, JIT): they would pass for the latency of the service
+        run(limiter(), WARM_UP);
+        Result unlimited = run(null, DURATION);
+        Result limited = run(limiter(), DURATION);
+
+        System.out.println("unlimited: " + unlimited);
+        System.out.println("limited:   " + limited);
+
+        // the long-term average of the limit drifts up while the overload lasts: the gain is below the
+        // one of a baseline pinned to the lowest latency, which a single fast outlier would pin forever
+        assertTrue(limited.percentile(0.5) < unlimited.percentile(0.5), "forwarded requests must stay faster");
+        assertTrue(limited.latencies.size() > unlimited.latencies.size() * 0.9,
+                "rejecting the excess must not cost throughput");
+        assertTrue(limited.adminRejectedShare() < limited.clientRejectedShare(),
+                "admins must be rejected less often than clients");
+    }
+
+    private static ConcurrencyLimiter limiter() {
+        return new ConcurrencyLimiter(20, 2, 200, 0.2, 1.5, 600, 0.2, 16, Duration.ofMillis(20));
+    }
+
+    private Result run(ConcurrencyLimiter limiter, Duration duration) throws InterruptedException {
+        Service service = new Service();
+        Result result = new Result();
+        long deadline = System.nanoTime() + duration.toNanos();
+        CountDownLatch done = new CountDownLatch(CLIENTS);
+        for (int i = 0; i < CLIENTS; i++) {
+            boolean admin = i < ADMINS;
+            Thread.ofVirtual().start(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        result.request(admin);
+                        ConcurrencyLimiter.Permit permit = limiter == null ? null : limiter.acquire(admin).block();
+                        if (limiter != null && permit == null) {
+                            result.reject(admin);
+                            // a rejected client backs off a little before retrying
+                            Thread.sleep(SERVICE_TIME_MILLIS);
+                            continue;
+                        }
+                        long start = System.nanoTime();
+                        service.call();
+                        long rtt = System.nanoTime() - start;
+                        result.record(rtt);
+                        if (limiter != null) {
+                            limiter.release(permit, rtt, false);
+                            result.recordLimit(limiter.getLimit());
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        assertTrue(done.await(duration.toSeconds() + 10, TimeUnit.SECONDS));
+        return result;
+    }
+
+    private static final class Service {
+
+        private final AtomicInteger inflight = new AtomicInteger();
+
+        void call() throws InterruptedException {
+            int concurrent = inflight.incrementAndGet();
+            try {
+                Thread.sleep(SERVICE_TIME_MILLIS * Math.max(1, concurrent / CAPACITY));
+            } finally {
+                inflight.decrementAndGet();
+            }
+        }
+    }
+
+    private static final class Result {
+
+        private final List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicLong clientRequests = new AtomicLong();
+        private final AtomicLong clientRejected = new AtomicLong();
+        private final AtomicLong adminRequests = new AtomicLong();
+        private final AtomicLong adminRejected = new AtomicLong();
+        private final AtomicLong limitSum = new AtomicLong();
+        private final AtomicLong limitSamples = new AtomicLong();
+
+        void request(boolean admin) {
+            (admin ? adminRequests : clientRequests).incrementAndGet();
+        }
+
+        void reject(boolean admin) {
+            (admin ? adminRejected : clientRejected).incrementAndGet();
+        }
+
+        void record(long rttNanos) {
+            latencies.add(rttNanos);
+        }
+
+        void recordLimit(int limit) {
+            limitSum.addAndGet(limit);
+            limitSamples.incrementAndGet();
+        }
+
+        double averageLimit() {
+            return limitSamples.get() == 0 ? -1 : (double) limitSum.get() / limitSamples.get();
+        }
+
+        double adminRejectedShare() {
+            return (double) adminRejected.get() / Math.max(1, adminRequests.get());
+        }
+
+        double clientRejectedShare() {
+            return (double) clientRejected.get() / Math.max(1, clientRequests.get());
+        }
+
+        long p99() {
+            return percentile(0.99);
+        }
+
+        private long percentile(double p) {
+            List<Long> sorted = new ArrayList<>(latencies);
+            Collections.sort(sorted);
+            return sorted.isEmpty() ? 0 : TimeUnit.NANOSECONDS.toMillis(sorted.get((int) (p * (sorted.size() - 1))));
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%6d forwarded, p50 %4d ms, p99 %4d ms, rejected %4.1f%% of client and %4.1f%% of admin requests%s",
+                    latencies.size(), percentile(0.5), p99(), 100 * clientRejectedShare(), 100 * adminRejectedShare(),
+                    limitSamples.get() == 0 ? "" : String.format(", average limit %.1f", averageLimit()));
+        }
+    }
+}
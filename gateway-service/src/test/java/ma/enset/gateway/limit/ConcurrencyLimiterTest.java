@@ -0,0 +1,117 @@
+package ma.enset.gateway.limit;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrencyLimiterTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void shareOfTheLimitIsReservedForPriorityRequests() {
+        ConcurrencyLimiter limiter = fixed(10, 0, Duration.ZERO);
+        for (int i = 0; i < 8; i++) {
+            assertNotNull(limiter.acquire(false).block());
+        }
+        assertNull(limiter.acquire(false).block());
+        assertNotNull(limiter.acquire(true).block());
+        assertNotNull(limiter.acquire(true).block());
+        assertNull(limiter.acquire(true).block());
+        assertEquals(1, limiter.getRejected(false));
+        assertEquals(1, limiter.getRejected(true));
+    }
+
+    @Test
+    void queuedPriorityRequestIsServedFirst() {
+        ConcurrencyLimiter limiter = fixed(1, 2, Duration.ofSeconds(5));
+        ConcurrencyLimiter.Permit first = limiter.acquire(false).block();
+        Mono<ConcurrencyLimiter.Permit> client = limiter.acquire(false);
+        Mono<ConcurrencyLimiter.Permit> admin = limiter.acquire(true);
+        assertEquals(2, limiter.getQueued());
+        // queue full
+        assertNull(limiter.acquire(true).block());
+
+        limiter.release(first, MS, false);
+        ConcurrencyLimiter.Permit adminPermit = admin.block(Duration.ofSeconds(1));
+        assertNotNull(adminPermit);
+        assertEquals(1, limiter.getQueued());
+
+        limiter.release(adminPermit, MS, false);
+        assertNotNull(client.block(Duration.ofSeconds(1)));
+        assertEquals(1, limiter.getInflight());
+    }
+
+    @Test
+    void queuedRequestIsRejectedAfterTheMaximumWait() {
+        ConcurrencyLimiter limiter = fixed(1, 10, Duration.ofMillis(50));
+        limiter.acquire(false).block();
+        StepVerifier.create(limiter.acquire(false)).expectComplete().verify(Duration.ofSeconds(1));
+        assertEquals(0, limiter.getQueued());
+        assertEquals(1, limiter.getRejected(false));
+    }
+
+    @Test
+    void limitFollowsTheLatencyOfTheService() {
+        GradientLimit limit = new GradientLimit(50, 1, 200, 0.2, 1.5, 600);
+        for (int i = 0; i < 200; i++) {
+            limit.update(10 * MS, limit.getLimit(), false);
+        }
+        int idle = limit.getLimit();
+        assertTrue(idle > 50, "flat latency with all permits in use grows the limit: " + idle);
+
+        for (int i = 0; i < 50; i++) {
+            limit.update(40 * MS, limit.getLimit(), false);
+        }
+        int overloaded = limit.getLimit();
+        assertTrue(overloaded < idle / 2, "latency four times higher shrinks the limit: " + overloaded);
+
+        for (int i = 0; i < 20; i++) {
+            limit.update(10 * MS, 1, false);
+        }
+        assertEquals(overloaded, limit.getLimit(), "unused permits say nothing about the limit");
+
+        limit.update(10 * MS, overloaded, true);
+        assertTrue(limit.getLimit() < overloaded);
+    }
+
+    @Test
+    void fastOutliersDoNotPinTheBaseline() {
+        GradientLimit limit = new GradientLimit(50, 1, 200, 0.2, 1.5, 600);
+        // e.g. cached responses: one request in 20 takes 1 ms, the others a flat 10 ms
+        for (int i = 0; i < 200; i++) {
+            limit.update((i % 20 == 0 ? 1 : 10) * MS, limit.getLimit(), false);
+        }
+        assertTrue(limit.getLimit() > 50, "flat latency with all permits in use grows the limit: " + limit.getLimit());
+    }
+
+    @Test
+    void nextOverloadIsDetectedSoonAfterALongOne() {
+        GradientLimit limit = new GradientLimit(50, 1, 200, 0.2, 1.5, 600);
+        // long enough for the long-term average to take the overloaded latency for the normal one
+        for (int i = 0; i < 3000; i++) {
+            limit.update(40 * MS, limit.getLimit(), false);
+        }
+        for (int i = 0; i < 100; i++) {
+            limit.update(10 * MS, limit.getLimit(), false);
+        }
+        int recovered = limit.getLimit();
+
+        for (int i = 0; i < 30; i++) {
+            limit.update(40 * MS, limit.getLimit(), false);
+        }
+        assertTrue(limit.getLimit() < recovered * 0.75, "recovered " + recovered + ", overloaded " + limit.getLimit());
+    }
+
+    private static ConcurrencyLimiter fixed(int limit, int maxQueued, Duration maxWait) {
+        return new ConcurrencyLimiter(limit, limit, limit, 0.2, 1.5, 100, 0.2, maxQueued, maxWait);
+    }
+}
@@ -0,0 +1,84 @@
+package ma.enset.gateway.routing;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.http.server.PathContainer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PrefixRouteTableTest {
+
+    private final Map<String, RouteDefinition> definitions = new LinkedHashMap<>();
+
+    @Test
+    void lookupReturnsTheRoutesOfTheFirstSegmentAndTheUnindexedOnesInRouteOrder() {
+        List<Route> routes = List.of(
+                route("catch-all-first", "Path=/{service}/**"),
+                route("products", "Path=/product-service/**"),
+                route("orders", "Path=/order-service/**"),
+                route("no-path", "Method=GET"),
+                route("products-v2", "Path=/product-service/v2/**"));
+        PrefixRouteTable table = PrefixRouteTable.compile(routes, definitions);
+
+        assertEquals(List.of("catch-all-first", "products", "no-path", "products-v2"),
+                ids(table.candidates(path("/product-service/products/1"))));
+        assertEquals(List.of("catch-all-first", "orders", "no-path"), ids(table.candidates(path("/order-service/orders"))));
+        assertEquals(5, table.size());
+        assertEquals(2, table.indexedSegments());
+    }
+
+    @Test
+    void unknownOrMissingSegmentOnlyGetsTheUnindexedRoutes() {
+        PrefixRouteTable table = PrefixRouteTable.compile(List.of(
+                route("products", "Path=/product-service/**"),
+                route("wildcard", "Path=/*-service/**")), definitions);
+
+        assertEquals(List.of("wildcard"), ids(table.candidates(path("/config-service/x"))));
+        assertEquals(List.of("wildcard"), ids(table.candidates(path("/"))));
+    }
+
+    @Test
+    void routeIsIndexedUnderEveryPatternOfItsPathPredicate() {
+        PrefixRouteTable table = PrefixRouteTable.compile(List.of(
+                route("shop", "Path=/product-service/**,/order-service/**,matchTrailingSlash=true"),
+                route("orders", "Path=/order-service/**")), definitions);
+
+        assertEquals(List.of("shop"), ids(table.candidates(path("/product-service"))));
+        assertEquals(List.of("shop", "orders"), ids(table.candidates(path("/order-service/orders"))));
+    }
+
+    @Test
+    void routeWithAPatternThatIsNotLiteralOrWithoutDefinitionIsNotIndexed() {
+        Route partlyLiteral = route("partly-literal", "Path=/product-service/**,/{other}/**");
+        Route undefined = Route.async().id("undefined").uri(URI.create("http://localhost")).predicate(e -> true).build();
+        PrefixRouteTable table = PrefixRouteTable.compile(List.of(partlyLiteral, undefined), definitions);
+
+        assertEquals(0, table.indexedSegments());
+        assertEquals(List.of("partly-literal", "undefined"), ids(table.candidates(path("/anything"))));
+    }
+
+    private Route route(String id, String... predicates) {
+        RouteDefinition definition = new RouteDefinition();
+        definition.setId(id);
+        definition.setUri(URI.create("lb://" + id));
+        definition.setPredicates(Arrays.stream(predicates).map(PredicateDefinition::new).toList());
+        definitions.put(id, definition);
+        return Route.async().id(id).uri(definition.getUri()).predicate(e -> true).build();
+    }
+
+    private static PathContainer path(String path) {
+        return PathContainer.parsePath(path);
+    }
+
+    private static List<String> ids(List<Route> routes) {
+        return routes.stream().map(Route::getId).toList();
+    }
+}
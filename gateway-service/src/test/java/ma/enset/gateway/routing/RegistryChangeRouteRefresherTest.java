@@ -0,0 +1,73 @@
+package ma.enset.gateway.routing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import org.springframework.cloud.client.discovery.event.HeartbeatEvent;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.support.GenericApplicationContext;
+import reactor.core.publisher.Flux;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RegistryChangeRouteRefresherTest {
+
+    private final List<ServiceInstance> instances = new ArrayList<>();
+    private final List<Object> published = new ArrayList<>();
+    private final GenericApplicationContext context = new GenericApplicationContext();
+    private final RegistryChangeRouteRefresher refresher = new RegistryChangeRouteRefresher(new ReactiveDiscoveryClient() {
+        @Override
+        public String description() {
+            return "test";
+        }
+
+        @Override
+        public Flux<ServiceInstance> getInstances(String serviceId) {
+            return Flux.fromIterable(instances).filter(instance -> instance.getServiceId().equals(serviceId));
+        }
+
+        @Override
+        public Flux<String> getServices() {
+            return Flux.fromIterable(instances).map(ServiceInstance::getServiceId).distinct();
+        }
+    }, published::add);
+
+    @Test
+    void refreshesOnlyWhenTheRegistryChanges() {
+        refresher.setApplicationContext(context);
+        instances.add(instance("product-service", "p1", 8081));
+
+        refresher.onApplicationEvent(new HeartbeatEvent(this, 1));
+        refresher.onApplicationEvent(new HeartbeatEvent(this, 2));
+        assertEquals(1, refreshes());
+
+        instances.add(instance("order-service", "o1", 8082));
+        refresher.onApplicationEvent(new HeartbeatEvent(this, 3));
+        assertEquals(2, refreshes());
+    }
+
+    @Test
+    void ignoresTheRefreshOfOtherContexts() {
+        refresher.setApplicationContext(context);
+        GenericApplicationContext child = new GenericApplicationContext(context);
+
+        refresher.onApplicationEvent(new ContextRefreshedEvent(child));
+        assertEquals(0, refreshes());
+
+        refresher.onApplicationEvent(new ContextRefreshedEvent(context));
+        assertEquals(1, refreshes());
+    }
+
+    private long refreshes() {
+        return published.stream().filter(RefreshRoutesEvent.class::isInstance).count();
+    }
+
+    private static ServiceInstance instance(String serviceId, String instanceId, int port) {
+        return new DefaultServiceInstance(instanceId, serviceId, "localhost", port, false);
+    }
+}
@@ -0,0 +1,29 @@
+package ma.enset.gateway.security;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdminAuthoritiesTest {
+
+    @Test
+    void adminIsRecognizedFromKeycloakRoles() {
+        assertTrue(AdminAuthorities.isAdmin(jwt(Map.of("realm_access", Map.of("roles", List.of("ADMIN"))))));
+        assertTrue(AdminAuthorities.isAdmin(jwt(Map.of("resource_access",
+                Map.of("microservices-app", Map.of("roles", List.of("ADMIN")))))));
+        assertFalse(AdminAuthorities.isAdmin(jwt(Map.of("realm_access", Map.of("roles", List.of("CLIENT"))))));
+        assertFalse(AdminAuthorities.isAdmin(null));
+    }
+
+    private static JwtAuthenticationToken jwt(Map<String, Object> claims) {
+        Jwt.Builder jwt = Jwt.withTokenValue("token").header("alg", "none").subject("user");
+        claims.forEach(jwt::claim);
+        return new JwtAuthenticationToken(jwt.build());
+    }
+}
@@ -0,0 +1,55 @@
+package ma.enset.orderservice.archive;
+
+import lombok.RequiredArgsConstructor;
+import ma.enset.orderservice.entities.Order;
+import ma.enset.orderservice.entities.OrderItem;
+import ma.enset.orderservice.entities.OrderStatus;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Read access to orders moved to the archive tables. Archived orders are returned as detached
+ * {@link Order} instances so that they go through the same mapping and checks as live ones.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderArchiveRepository {
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public Optional<Order> findById(Long id) {
+        List<Order> orders = jdbc.query(
+                "SELECT id, order_date, status, total_amount, user_id, status_version FROM orders_archive WHERE id = :id",
+                Map.of("id", id),
+                (rs, rowNum) -> Order.builder()
+                        .id(rs.getLong("id"))
+                        .orderDate(rs.getTimestamp("order_date") == null ? null
+                                : rs.getTimestamp("order_date").toLocalDateTime())
+                        .status(rs.getString("status") == null ? null : OrderStatus.valueOf(rs.getString("status")))
+                        .totalAmount(rs.getDouble("total_amount"))
+                        .userId(rs.getString("user_id"))
+                        .statusVersion(rs.getInt("status_version"))
+                        .build());
+        if (orders.isEmpty()) {
+            return Optional.empty();
+        }
+        Order order = orders.get(0);
+        jdbc.query("SELECT id, product_id, quantity, unit_price, line_total FROM order_items_archive "
+                        + "WHERE order_id = :id ORDER BY id",
+                Map.of("id", id),
+                rs -> {
+                    order.addItem(OrderItem.builder()
+                            .id(rs.getLong("id"))
+                            .productId(rs.getLong("product_id"))
+                            .quantity(rs.getInt("quantity"))
+                            .unitPrice(rs.getDouble("unit_price"))
+                            .lineTotal(rs.getDouble("line_total"))
+                            .build());
+                });
+        return Optional.of(order);
+    }
+}
@@ -0,0 +1,83 @@
+package ma.enset.orderservice.archive;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves orders older than {@code order.archive.max-age} (and their items) from the live tables to
+ * {@code orders_archive}/{@code order_items_archive}.
+ * <p>
+ * Each batch runs in its own short transaction, so the live tables are never locked for the whole
+ * run; {@code SKIP LOCKED} lets a batch pass over orders that are being updated concurrently, they
+ * are picked up by the next run.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "order.archive.enabled", havingValue = "true")
+public class OrderArchiver {
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration maxAge;
+    private final int batchSize;
+
+    public OrderArchiver(NamedParameterJdbcTemplate jdbc,
+                         TransactionTemplate transactionTemplate,
+                         @Value("${order.archive.max-age:365d}") Duration maxAge,
+                         @Value("${order.archive.batch-size:500}") int batchSize) {
+        this.jdbc = jdbc;
+        this.transactionTemplate = transactionTemplate;
+        this.maxAge = maxAge;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(cron = "${order.archive.cron:0 0 3 * * *}")
+    public void archiveOldOrders() {
+        archiveOlderThan(LocalDateTime.now().minus(maxAge));
+    }
+
+    public int archiveOlderThan(LocalDateTime cutoff) {
+        int total = 0;
+        int moved;
+        do {
+            moved = transactionTemplate.execute(status -> archiveBatch(cutoff));
+            total += moved;
+        } while (moved == batchSize);
+        if (total > 0) {
+            log.info("Archived {} orders older than {}", total, cutoff);
+        }
+        return total;
+    }
+
+    private int archiveBatch(LocalDateTime cutoff) {
+        List<Long> ids = jdbc.queryForList(
+                "SELECT id FROM orders WHERE order_date < :cutoff ORDER BY order_date LIMIT :limit "
+                        + "FOR UPDATE SKIP LOCKED",
+                new MapSqlParameterSource("cutoff", cutoff).addValue("limit", batchSize),
+                Long.class);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", ids)
+                .addValue("archivedAt", LocalDateTime.now());
+        jdbc.update("INSERT INTO orders_archive (id, order_date, status, total_amount, user_id, status_version, archived_at) "
+                + "SELECT id, order_date, status, total_amount, user_id, status_version, :archivedAt FROM orders "
+                + "WHERE id IN (:ids)", params);
+        jdbc.update("INSERT INTO order_items_archive (id, order_id, product_id, quantity, unit_price, line_total) "
+                + "SELECT id, order_id, product_id, quantity, unit_price, line_total FROM order_items "
+                + "WHERE order_id IN (:ids)", params);
+        jdbc.update("DELETE FROM order_items WHERE order_id IN (:ids)", params);
+        jdbc.update("DELETE FROM orders WHERE id IN (:ids)", params);
+        return ids.size();
+    }
+}
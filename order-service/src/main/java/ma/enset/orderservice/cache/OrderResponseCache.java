@@ -0,0 +1,94 @@
+package ma.enset.orderservice.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import ma.enset.orderservice.dtos.OrderResponse;
+import ma.enset.orderservice.events.OrderChangedEvent;
+import ma.enset.orderservice.events.OrderEventType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Serialized {@link OrderResponse} JSON of recently read orders, least recently used evicted first.
+ * <p>
+ * The items and amounts of an order never change once it is saved, only its status, which bumps its
+ * status version: an entry is only served for the status version it was built from, so a stale entry
+ * is never returned even if a status change made by another instance was not evicted here. Access
+ * checks are left to the caller, the cache only holds the bytes.
+ */
+@Slf4j
+@Component
+public class OrderResponseCache {
+
+    private final ObjectMapper objectMapper;
+    private final Map<Long, Entry> entries;
+
+    public OrderResponseCache(ObjectMapper objectMapper,
+                              @Value("${order.response-cache.max-entries:10000}") int maxEntries) {
+        this.objectMapper = objectMapper;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * The cached JSON of the order at this status version, or null.
+     */
+    public byte[] get(Long orderId, int statusVersion) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(orderId);
+        }
+        return entry != null && entry.statusVersion() == statusVersion ? entry.json() : null;
+    }
+
+    /**
+     * Serializes the order and caches the result for this status version.
+     */
+    public byte[] put(OrderResponse order, int statusVersion) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(order);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize order " + order.getId(), e);
+        }
+        synchronized (entries) {
+            Entry current = entries.get(order.getId());
+            // a concurrent reader may already have cached a newer status
+            if (current == null || current.statusVersion() <= statusVersion) {
+                entries.put(order.getId(), new Entry(statusVersion, json));
+            }
+        }
+        return json;
+    }
+
+    public void evict(Long orderId) {
+        synchronized (entries) {
+            entries.remove(orderId);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        if (event.type() == OrderEventType.ORDER_STATUS_CHANGED) {
+            evict(event.order().getId());
+        }
+    }
+
+    private record Entry(int statusVersion, byte[] json) {
+    }
+}
@@ -10,6 +10,8 @@ import org.springframework.security.oauth2.server.resource.authentication.JwtAut
 @Configuration
 public class FeignConfig {
 
+    // the trace context (traceparent) is added next to this header by the Micrometer observation
+    // capability that Spring Cloud OpenFeign registers when feign-micrometer is present
     @Bean
     public RequestInterceptor oauth2FeignRequestInterceptor() {
         return template -> {
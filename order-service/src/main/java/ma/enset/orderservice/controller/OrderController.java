@@ -2,14 +2,20 @@ package ma.enset.orderservice.controller;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import ma.enset.orderservice.dtos.BulkStatusRequest;
+import ma.enset.orderservice.dtos.BulkStatusResponse;
 import ma.enset.orderservice.dtos.OrderRequest;
 import ma.enset.orderservice.dtos.OrderResponse;
+import ma.enset.orderservice.events.OrderEventFeed;
 import ma.enset.orderservice.services.OrderService;
+import ma.enset.orderservice.services.OrderStatusService;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -19,6 +25,8 @@ import java.util.List;
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderEventFeed orderEventFeed;
+    private final OrderStatusService orderStatusService;
 
     private String getUserId(Authentication authentication) {
         Object principal = authentication.getPrincipal();
@@ -49,12 +57,36 @@ public class OrderController {
         return orderService.getAllOrders();
     }
 
-    @GetMapping("/{id}")
+    @PostMapping("/bulk/confirm")
+    @PreAuthorize("hasAuthority('SCOPE_ADMIN')")
+    public BulkStatusResponse confirmOrders(@RequestBody @Valid BulkStatusRequest request) {
+        return orderStatusService.confirmOrders(request);
+    }
+
+    @PostMapping("/bulk/cancel")
+    @PreAuthorize("hasAuthority('SCOPE_ADMIN')")
+    public BulkStatusResponse cancelOrders(@RequestBody @Valid BulkStatusRequest request) {
+        return orderStatusService.cancelOrders(request);
+    }
+
+    /**
+     * Server-sent events for created orders and status changes. Browsers resend the id of the last
+     * event received in {@code Last-Event-ID} when reconnecting; other clients may pass it as a parameter.
+     */
+    @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAuthority('SCOPE_ADMIN')")
+    public SseEmitter orderEvents(@RequestHeader(name = "Last-Event-ID", required = false) Long lastEventIdHeader,
+                                  @RequestParam(name = "lastEventId", required = false) Long lastEventId) {
+        return orderEventFeed.subscribe(lastEventIdHeader != null ? lastEventIdHeader : lastEventId);
+    }
+
+    // cached JSON of the order, see OrderResponseCache
+    @GetMapping(path = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("hasAuthority('SCOPE_CLIENT') or hasAuthority('SCOPE_ADMIN')")
-    public OrderResponse orderById(@PathVariable Long id, Authentication authentication) {
+    public byte[] orderById(@PathVariable Long id, Authentication authentication) {
         String userId = getUserId(authentication);
         boolean isAdmin = authentication.getAuthorities().stream()
                 .anyMatch(a -> a.getAuthority().equals("SCOPE_ADMIN"));
-        return orderService.getOrderById(id, userId, isAdmin);
+        return orderService.getOrderJsonById(id, userId, isAdmin);
     }
 }
@@ -0,0 +1,70 @@
+package ma.enset.orderservice.datasource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Remembers which users wrote recently, so that their reads go to the primary until the
+ * replicas had time to catch up (a user who just created an order must see it in "my orders").
+ * <p>
+ * Writes are tracked in memory, per order-service instance: a read served by another instance than
+ * the one that took the write is routed normally and may still hit a lagging replica. Running several
+ * instances behind the gateway needs sticky routing per user, or a shared store for the last writes.
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    private static final int PURGE_THRESHOLD = 10_000;
+
+    private final long windowNanos;
+    private final ConcurrentMap<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+    public ReadYourWritesTracker(@Value("${order.datasource.read-your-writes-window:10s}") Duration window) {
+        this.windowNanos = window.toNanos();
+    }
+
+    public void recordWrite(String userId) {
+        if (userId == null) {
+            return;
+        }
+        lastWrites.put(userId, System.nanoTime());
+        if (lastWrites.size() > PURGE_THRESHOLD) {
+            long now = System.nanoTime();
+            lastWrites.values().removeIf(at -> now - at > windowNanos);
+        }
+    }
+
+    public boolean currentUserRecentlyWrote() {
+        String userId = currentUserId();
+        if (userId == null) {
+            return false;
+        }
+        Long at = lastWrites.get(userId);
+        if (at == null) {
+            return false;
+        }
+        if (System.nanoTime() - at > windowNanos) {
+            lastWrites.remove(userId, at);
+            return false;
+        }
+        return true;
+    }
+
+    private String currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            return null;
+        }
+        if (authentication.getPrincipal() instanceof Jwt jwt) {
+            return jwt.getSubject();
+        }
+        return authentication.getName();
+    }
+}
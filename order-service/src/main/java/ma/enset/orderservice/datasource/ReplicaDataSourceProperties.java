@@ -0,0 +1,40 @@
+package ma.enset.orderservice.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "order.datasource")
+public class ReplicaDataSourceProperties {
+
+    /**
+     * Read replicas of orderdb. Read-only transactions are routed to them when at least one is configured.
+     */
+    private List<Replica> replicas = new ArrayList<>();
+
+    /**
+     * A replica lagging more than this is not used until it catches up.
+     */
+    private Duration maxLag = Duration.ofSeconds(5);
+
+    private Duration checkInterval = Duration.ofSeconds(5);
+
+    /**
+     * Query returning the replication lag of a replica in seconds. A replica that replayed all the WAL it
+     * received is caught up: the age of its last replayed transaction only says the primary has been idle.
+     */
+    private String lagQuery = "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0"
+            + " ELSE COALESCE(EXTRACT(EPOCH FROM (now() - pg_last_xact_replay_timestamp())), 0) END";
+
+    @Data
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName;
+    }
+}
@@ -0,0 +1,100 @@
+package ma.enset.orderservice.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically measures the replication lag of each replica and marks it available only when it is
+ * reachable and lags less than the configured maximum.
+ */
+@Slf4j
+public class ReplicaHealthMonitor implements InitializingBean, DisposableBean {
+
+    private final List<ReplicaTarget> replicas;
+    private final String lagQuery;
+    private final double maxLagSeconds;
+    private final Duration checkInterval;
+    private ScheduledExecutorService scheduler;
+
+    public ReplicaHealthMonitor(List<ReplicaTarget> replicas, String lagQuery, Duration maxLag, Duration checkInterval) {
+        this.replicas = List.copyOf(replicas);
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLag.toMillis() / 1000d;
+        this.checkInterval = checkInterval;
+    }
+
+    public List<ReplicaTarget> getReplicas() {
+        return replicas;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        check();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = checkInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::check, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public void check() {
+        for (ReplicaTarget replica : replicas) {
+            boolean available;
+            try {
+                double lag = lagSeconds(replica);
+                available = lag <= maxLagSeconds;
+                if (!available && replica.isAvailable()) {
+                    log.warn("Replica {} lags {}s behind the primary, reads go to the primary", replica.getName(), lag);
+                }
+            } catch (SQLException e) {
+                available = false;
+                if (replica.isAvailable()) {
+                    log.warn("Replica {} is unreachable, reads go to the primary: {}", replica.getName(), e.getMessage());
+                }
+            }
+            if (available && !replica.isAvailable()) {
+                log.info("Replica {} is available for reads", replica.getName());
+            }
+            replica.setAvailable(available);
+        }
+    }
+
+    private double lagSeconds(ReplicaTarget replica) throws SQLException {
+        try (Connection connection = replica.getDataSource().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(Math.max(1, (int) checkInterval.toSeconds()));
+            try (ResultSet resultSet = statement.executeQuery(lagQuery)) {
+                return resultSet.next() ? resultSet.getDouble(1) : 0d;
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        for (ReplicaTarget replica : replicas) {
+            if (replica.getDataSource() instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.debug("Could not close replica {}", replica.getName(), e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package ma.enset.orderservice.datasource;
+
+import javax.sql.DataSource;
+
+/**
+ * A read replica and its last known state. Replicas start unavailable until a health check
+ * confirms that they are reachable and within the allowed lag.
+ */
+public class ReplicaTarget {
+
+    private final String name;
+    private final DataSource dataSource;
+    private volatile boolean available;
+
+    public ReplicaTarget(String name, DataSource dataSource) {
+        this.name = name;
+        this.dataSource = dataSource;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    void setAvailable(boolean available) {
+        this.available = available;
+    }
+}
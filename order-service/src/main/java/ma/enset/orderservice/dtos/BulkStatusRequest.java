@@ -0,0 +1,23 @@
+package ma.enset.orderservice.dtos;
+
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import ma.enset.orderservice.entities.OrderStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Orders targeted by a bulk status change: either a list of ids, or a filter on the current status,
+ * the order date range ({@code from} inclusive, {@code to} exclusive) and the user.
+ */
+@Data
+public class BulkStatusRequest {
+    @Size(max = 10000)
+    private List<Long> ids;
+
+    private OrderStatus status;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private String userId;
+}
@@ -0,0 +1,17 @@
+package ma.enset.orderservice.dtos;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class BulkStatusResponse {
+    private String status;
+    private int updated;
+    // with a filter, only the first order.bulk-status.max-reported-ids of them: updated has the total
+    private List<Long> updatedIds;
+    // requested ids that were not updated: unknown, archived, or not in a status allowing the change
+    private List<Long> skippedIds;
+}
@@ -27,6 +27,9 @@ public class Order {
 
     private String userId;
 
+    // incremented on each status change, the rest of an order never changes once saved
+    private int statusVersion;
+
     @Builder.Default
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<OrderItem> items = new ArrayList<>();
@@ -1,8 +1,20 @@
 package ma.enset.orderservice.entities;
 
+import java.util.Set;
+
 public enum OrderStatus {
     PENDING,
     CONFIRMED,
-    CANCELLED
-}
+    CANCELLED;
 
+    /**
+     * Statuses an order can move to this status from.
+     */
+    public Set<OrderStatus> previousStatuses() {
+        return switch (this) {
+            case PENDING -> Set.of();
+            case CONFIRMED -> Set.of(PENDING);
+            case CANCELLED -> Set.of(PENDING, CONFIRMED);
+        };
+    }
+}
@@ -0,0 +1,10 @@
+package ma.enset.orderservice.events;
+
+import ma.enset.orderservice.dtos.OrderResponse;
+
+/**
+ * Published when an order is created ({@code OrderServiceImpl}) or changes status
+ * ({@code OrderStatusServiceImpl}); delivered to the {@link OrderEventFeed} once the transaction has committed.
+ */
+public record OrderChangedEvent(OrderEventType type, OrderResponse order) {
+}
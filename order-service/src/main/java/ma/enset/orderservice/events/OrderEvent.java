@@ -0,0 +1,8 @@
+package ma.enset.orderservice.events;
+
+/**
+ * An entry of the {@link OrderEventRing}: the SSE event id, its type (the SSE event name) and the
+ * order serialized once as JSON for all subscribers.
+ */
+public record OrderEvent(long id, OrderEventType type, String data) {
+}
@@ -0,0 +1,159 @@
+package ma.enset.orderservice.events;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live feed of order changes for admin dashboards, served as server-sent events.
+ * <p>
+ * Committed changes are serialized once and appended to an {@link OrderEventRing}; each subscriber
+ * has its own virtual thread reading the ring from its cursor and writing to its connection, so a
+ * slow client only delays itself and never the order that produced the event. A client that
+ * reconnects with {@code Last-Event-ID} gets the events it missed, or a {@code reset} event when
+ * they are no longer buffered, after which it should reload the orders it displays.
+ * <p>
+ * Creations are published by {@code OrderServiceImpl}, status changes by {@code OrderStatusServiceImpl}.
+ */
+@Slf4j
+@Component
+public class OrderEventFeed implements DisposableBean {
+
+    static final String READY = "ready";
+    static final String RESET = "reset";
+    private static final int MAX_BATCH = 100;
+
+    private final ObjectMapper objectMapper;
+    private final OrderEventRing ring;
+    private final long emitterTimeoutMillis;
+    private final Duration heartbeat;
+    private final int maxSubscribers;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    public OrderEventFeed(ObjectMapper objectMapper,
+                          @Value("${order.events.buffer-size:1024}") int bufferSize,
+                          @Value("${order.events.emitter-timeout:30m}") Duration emitterTimeout,
+                          @Value("${order.events.heartbeat:15s}") Duration heartbeat,
+                          @Value("${order.events.max-subscribers:100}") int maxSubscribers) {
+        this.objectMapper = objectMapper;
+        this.ring = new OrderEventRing(bufferSize);
+        this.emitterTimeoutMillis = emitterTimeout.toMillis();
+        this.heartbeat = heartbeat;
+        this.maxSubscribers = maxSubscribers;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        try {
+            ring.append(event.type(), objectMapper.writeValueAsString(event.order()));
+        } catch (JsonProcessingException e) {
+            log.warn("Cannot publish {} for order {}: {}", event.type(), event.order().getId(), e.getMessage());
+        }
+    }
+
+    public SseEmitter subscribe(Long lastEventId) {
+        return subscribe(lastEventId, new SseEmitter(emitterTimeoutMillis));
+    }
+
+    SseEmitter subscribe(Long lastEventId, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter, lastEventId);
+        // checked and added together, so that concurrent subscriptions cannot go over the limit
+        synchronized (subscribers) {
+            if (subscribers.size() >= maxSubscribers) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many order event subscribers");
+            }
+            subscribers.add(subscriber);
+        }
+        emitter.onCompletion(subscriber::stop);
+        emitter.onTimeout(subscriber::stop);
+        emitter.onError(error -> subscriber.stop());
+        subscriber.thread = Thread.ofVirtual().name("order-events-subscriber").start(subscriber::run);
+        return emitter;
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void destroy() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.stop();
+            subscriber.emitter.complete();
+        }
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Long lastEventId;
+        private volatile boolean active = true;
+        private volatile Thread thread;
+
+        Subscriber(SseEmitter emitter, Long lastEventId) {
+            this.emitter = emitter;
+            this.lastEventId = lastEventId;
+        }
+
+        void run() {
+            try {
+                long cursor;
+                if (lastEventId != null && ring.canResumeFrom(lastEventId)) {
+                    cursor = lastEventId;
+                } else {
+                    cursor = ring.lastId();
+                    // nothing to resume from: the client starts from the current state of the orders
+                    emitter.send(SseEmitter.event().id(Long.toString(cursor)).name(lastEventId == null ? READY : RESET).data(cursor));
+                }
+                while (active) {
+                    List<OrderEvent> events = ring.awaitAfter(cursor, heartbeat, MAX_BATCH);
+                    if (events == null) {
+                        // fell more than the buffer behind, the missed events are gone
+                        cursor = ring.lastId();
+                        emitter.send(SseEmitter.event().id(Long.toString(cursor)).name(RESET).data(cursor));
+                    } else if (events.isEmpty()) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } else {
+                        for (OrderEvent event : events) {
+                            emitter.send(SseEmitter.event()
+                                    .id(Long.toString(event.id()))
+                                    .name(event.type().name())
+                                    .data(event.data(), MediaType.APPLICATION_JSON));
+                            cursor = event.id();
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | IllegalStateException e) {
+                // client gone or emitter already completed
+                log.debug("Order event subscriber disconnected: {}", e.getMessage());
+            } finally {
+                subscribers.remove(this);
+            }
+        }
+
+        void stop() {
+            active = false;
+            subscribers.remove(this);
+            Thread current = thread;
+            if (current != null && current != Thread.currentThread()) {
+                current.interrupt();
+            }
+        }
+    }
+}
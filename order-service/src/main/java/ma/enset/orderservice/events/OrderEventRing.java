@@ -0,0 +1,103 @@
+package ma.enset.orderservice.events;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded buffer of the last order events, read by each subscriber from its own cursor.
+ * <p>
+ * Appending overwrites the oldest event and never waits for readers: a reader that falls more than
+ * the capacity behind is told so ({@link #awaitAfter} returns null) and must start over. Ids start
+ * from the clock, so that an id kept by a client across a restart of the service is detected as
+ * out of range instead of matching unrelated events.
+ */
+public class OrderEventRing {
+
+    private final OrderEvent[] slots;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private final long firstId;
+    private long lastId;
+
+    public OrderEventRing(int capacity) {
+        this(capacity, System.currentTimeMillis() * 1000);
+    }
+
+    OrderEventRing(int capacity, long lastId) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.slots = new OrderEvent[capacity];
+        this.firstId = lastId + 1;
+        this.lastId = lastId;
+    }
+
+    public OrderEvent append(OrderEventType type, String data) {
+        lock.lock();
+        try {
+            OrderEvent event = new OrderEvent(++lastId, type, data);
+            slots[slot(event.id())] = event;
+            appended.signalAll();
+            return event;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long lastId() {
+        lock.lock();
+        try {
+            return lastId;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Whether all the events after {@code cursor} are still in the buffer.
+     */
+    public boolean canResumeFrom(long cursor) {
+        lock.lock();
+        try {
+            return inRange(cursor);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Up to {@code max} events after {@code cursor}, waiting up to {@code timeout} for one to be appended.
+     * Returns an empty list on timeout, and null when events after {@code cursor} were overwritten.
+     */
+    public List<OrderEvent> awaitAfter(long cursor, Duration timeout, int max) throws InterruptedException {
+        lock.lock();
+        try {
+            long nanos = timeout.toNanos();
+            while (lastId == cursor && nanos > 0) {
+                nanos = appended.awaitNanos(nanos);
+            }
+            if (!inRange(cursor)) {
+                return null;
+            }
+            List<OrderEvent> events = new ArrayList<>((int) Math.min(max, lastId - cursor));
+            for (long id = cursor + 1; id <= lastId && events.size() < max; id++) {
+                events.add(slots[slot(id)]);
+            }
+            return events;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean inRange(long cursor) {
+        long oldest = Math.max(firstId, lastId - slots.length + 1);
+        return cursor >= oldest - 1 && cursor <= lastId;
+    }
+
+    private int slot(long id) {
+        return (int) Math.floorMod(id, (long) slots.length);
+    }
+}
@@ -0,0 +1,6 @@
+package ma.enset.orderservice.events;
+
+public enum OrderEventType {
+    ORDER_CREATED,
+    ORDER_STATUS_CHANGED
+}
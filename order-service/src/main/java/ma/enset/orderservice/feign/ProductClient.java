@@ -8,6 +8,10 @@ import org.springframework.web.bind.annotation.PathVariable;
 
 @FeignClient(name = "product-service", configuration = FeignConfig.class)
 public interface ProductClient {
-    @GetMapping("/api/products/{id}")
+
+    // binary CBOR is preferred for this internal hop, JSON stays acceptable as a fallback
+    String ACCEPT_CBOR_THEN_JSON = "application/cbor, application/json;q=0.9";
+
+    @GetMapping(value = "/products/{id}", produces = ACCEPT_CBOR_THEN_JSON)
     Product getProduct(@PathVariable("id") Long id);
 }
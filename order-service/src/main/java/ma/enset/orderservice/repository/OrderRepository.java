@@ -1,11 +1,18 @@
 package ma.enset.orderservice.repository;
 
 import ma.enset.orderservice.entities.Order;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.List;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
+
+    // order lists always render the items: fetched in the same query instead of one query per order
+    @EntityGraph(attributePaths = "items")
     List<Order> findByUserId(String userId);
-}
 
+    @Override
+    @EntityGraph(attributePaths = "items")
+    List<Order> findAll();
+}
@@ -0,0 +1,87 @@
+package ma.enset.orderservice.repository;
+
+import lombok.RequiredArgsConstructor;
+import ma.enset.orderservice.entities.OrderStatus;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Set-based status changes on the {@code orders} table, without loading the order entities.
+ * <p>
+ * Rows are first locked ({@code FOR UPDATE}) in the status the change is allowed from, then updated
+ * with the same status condition: a transition committed concurrently by someone else is waited
+ * for, and the row is left out if it no longer qualifies. Both must run in the same transaction.
+ * Filters only select candidate ids, without locking: a locking read that drops a row changed
+ * meanwhile would return a short page, which cannot be told apart from the last one.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderStatusRepository {
+
+    private static final String COLUMNS = "SELECT id, order_date, status, total_amount FROM orders ";
+
+    private static final RowMapper<OrderStatusRow> ROW_MAPPER = (rs, rowNum) -> new OrderStatusRow(
+            rs.getLong("id"),
+            rs.getTimestamp("order_date") == null ? null : rs.getTimestamp("order_date").toLocalDateTime(),
+            OrderStatus.valueOf(rs.getString("status")),
+            rs.getDouble("total_amount"));
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public List<OrderStatusRow> lockByIds(Collection<Long> ids, Set<OrderStatus> fromStatuses) {
+        return jdbc.query(COLUMNS + "WHERE id IN (:ids) AND status IN (:from) ORDER BY id FOR UPDATE",
+                new MapSqlParameterSource("ids", ids).addValue("from", names(fromStatuses)),
+                ROW_MAPPER);
+    }
+
+    /**
+     * Ids of the next orders matching the filter, in id order after {@code afterId}, not locked. Null filter
+     * values are ignored.
+     */
+    public List<Long> findIdsByFilter(Set<OrderStatus> fromStatuses, LocalDateTime from, LocalDateTime to,
+                                      String userId, long afterId, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT id FROM orders WHERE id > :afterId AND status IN (:from)");
+        MapSqlParameterSource params = new MapSqlParameterSource("afterId", afterId)
+                .addValue("from", names(fromStatuses))
+                .addValue("limit", limit);
+        if (from != null) {
+            sql.append(" AND order_date >= :fromDate");
+            params.addValue("fromDate", from);
+        }
+        if (to != null) {
+            sql.append(" AND order_date < :toDate");
+            params.addValue("toDate", to);
+        }
+        if (userId != null) {
+            sql.append(" AND user_id = :userId");
+            params.addValue("userId", userId);
+        }
+        sql.append(" ORDER BY id LIMIT :limit");
+        return jdbc.queryForList(sql.toString(), params, Long.class);
+    }
+
+    /**
+     * Moves the rows still in one of {@code fromStatuses} to {@code status} and bumps their status version.
+     */
+    public int updateStatus(Collection<Long> ids, Set<OrderStatus> fromStatuses, OrderStatus status) {
+        return jdbc.update("UPDATE orders SET status = :status, status_version = status_version + 1 "
+                        + "WHERE id IN (:ids) AND status IN (:from)",
+                new MapSqlParameterSource("ids", ids)
+                        .addValue("from", names(fromStatuses))
+                        .addValue("status", status.name()));
+    }
+
+    private static List<String> names(Set<OrderStatus> statuses) {
+        return statuses.stream().map(OrderStatus::name).toList();
+    }
+
+    public record OrderStatusRow(Long id, LocalDateTime orderDate, OrderStatus status, double totalAmount) {
+    }
+}
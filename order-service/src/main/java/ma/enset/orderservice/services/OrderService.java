@@ -9,6 +9,6 @@ public interface OrderService {
     OrderResponse createOrder(OrderRequest request, String userId);
     List<OrderResponse> getMyOrders(String userId);
     List<OrderResponse> getAllOrders();
-    OrderResponse getOrderById(Long id, String userId, boolean isAdmin);
+    byte[] getOrderJsonById(Long id, String userId, boolean isAdmin);
 }
 
@@ -1,16 +1,22 @@
 package ma.enset.orderservice.services;
 
 import lombok.RequiredArgsConstructor;
+import ma.enset.orderservice.archive.OrderArchiveRepository;
+import ma.enset.orderservice.cache.OrderResponseCache;
+import ma.enset.orderservice.datasource.ReadYourWritesTracker;
 import ma.enset.orderservice.dtos.OrderItemRequest;
 import ma.enset.orderservice.dtos.OrderRequest;
 import ma.enset.orderservice.dtos.OrderResponse;
 import ma.enset.orderservice.entities.Order;
 import ma.enset.orderservice.entities.OrderItem;
 import ma.enset.orderservice.entities.OrderStatus;
+import ma.enset.orderservice.events.OrderChangedEvent;
+import ma.enset.orderservice.events.OrderEventType;
 import ma.enset.orderservice.feign.ProductClient;
 import ma.enset.orderservice.mappers.OrderMapper;
 import ma.enset.orderservice.models.Product;
 import ma.enset.orderservice.repository.OrderRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -27,8 +33,12 @@ import java.util.List;
 public class OrderServiceImpl implements OrderService {
 
     private final OrderRepository orderRepository;
+    private final OrderArchiveRepository orderArchiveRepository;
     private final ProductClient productClient;
     private final OrderMapper orderMapper;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OrderResponseCache orderResponseCache;
 
     @Override
     public OrderResponse createOrder(OrderRequest request, String userId) {
@@ -74,10 +84,14 @@ public class OrderServiceImpl implements OrderService {
         order.setTotalAmount(total);
 
         Order saved = orderRepository.save(order);
-        return orderMapper.toResponse(saved);
+        readYourWritesTracker.recordWrite(userId);
+        OrderResponse response = orderMapper.toResponse(saved);
+        eventPublisher.publishEvent(new OrderChangedEvent(OrderEventType.ORDER_CREATED, response));
+        return response;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<OrderResponse> getMyOrders(String userId) {
         return orderRepository.findByUserId(userId).stream()
                 .map(orderMapper::toResponse)
@@ -85,6 +99,7 @@ public class OrderServiceImpl implements OrderService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<OrderResponse> getAllOrders() {
         return orderRepository.findAll().stream()
                 .map(orderMapper::toResponse)
@@ -92,12 +107,24 @@ public class OrderServiceImpl implements OrderService {
     }
 
     @Override
-    public OrderResponse getOrderById(Long id, String userId, boolean isAdmin) {
+    @Transactional(readOnly = true)
+    public byte[] getOrderJsonById(Long id, String userId, boolean isAdmin) {
+        // the access check only needs the order row: the lazy items are not loaded on a cache hit
+        Order order = findAccessibleOrder(id, userId, isAdmin);
+        byte[] cached = orderResponseCache.get(id, order.getStatusVersion());
+        if (cached != null) {
+            return cached;
+        }
+        return orderResponseCache.put(orderMapper.toResponse(order), order.getStatusVersion());
+    }
+
+    private Order findAccessibleOrder(Long id, String userId, boolean isAdmin) {
         Order order = orderRepository.findById(id)
+                .or(() -> orderArchiveRepository.findById(id))
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found"));
         if (!isAdmin && !order.getUserId().equals(userId)) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied");
         }
-        return orderMapper.toResponse(order);
+        return order;
     }
 }
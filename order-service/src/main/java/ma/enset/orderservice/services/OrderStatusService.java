@@ -0,0 +1,9 @@
+package ma.enset.orderservice.services;
+
+import ma.enset.orderservice.dtos.BulkStatusRequest;
+import ma.enset.orderservice.dtos.BulkStatusResponse;
+
+public interface OrderStatusService {
+    BulkStatusResponse confirmOrders(BulkStatusRequest request);
+    BulkStatusResponse cancelOrders(BulkStatusRequest request);
+}
@@ -0,0 +1,149 @@
+package ma.enset.orderservice.services;
+
+import lombok.extern.slf4j.Slf4j;
+import ma.enset.orderservice.dtos.BulkStatusRequest;
+import ma.enset.orderservice.dtos.BulkStatusResponse;
+import ma.enset.orderservice.dtos.OrderResponse;
+import ma.enset.orderservice.entities.OrderStatus;
+import ma.enset.orderservice.events.OrderChangedEvent;
+import ma.enset.orderservice.events.OrderEventType;
+import ma.enset.orderservice.repository.OrderStatusRepository;
+import ma.enset.orderservice.repository.OrderStatusRepository.OrderStatusRow;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Bulk status changes run as chunks of set-based statements, each chunk in its own short
+ * transaction: the orders and their items are never loaded, and a large change does not keep
+ * thousands of rows locked until it ends. Rows are locked in id order so that concurrent bulk
+ * changes cannot deadlock. A filter is paged over candidate ids, each page then locked like a list
+ * of requested ids.
+ */
+@Slf4j
+@Service
+public class OrderStatusServiceImpl implements OrderStatusService {
+
+    private final OrderStatusRepository orderStatusRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+    private final int maxReportedIds;
+
+    public OrderStatusServiceImpl(OrderStatusRepository orderStatusRepository,
+                                  TransactionTemplate transactionTemplate,
+                                  ApplicationEventPublisher eventPublisher,
+                                  @Value("${order.bulk-status.chunk-size:500}") int chunkSize,
+                                  @Value("${order.bulk-status.max-reported-ids:1000}") int maxReportedIds) {
+        this.orderStatusRepository = orderStatusRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+        this.maxReportedIds = maxReportedIds;
+    }
+
+    @Override
+    public BulkStatusResponse confirmOrders(BulkStatusRequest request) {
+        return changeStatus(request, OrderStatus.CONFIRMED);
+    }
+
+    @Override
+    public BulkStatusResponse cancelOrders(BulkStatusRequest request) {
+        return changeStatus(request, OrderStatus.CANCELLED);
+    }
+
+    private BulkStatusResponse changeStatus(BulkStatusRequest request, OrderStatus target) {
+        boolean byIds = request.getIds() != null && !request.getIds().isEmpty();
+        boolean byFilter = request.getStatus() != null || request.getFrom() != null || request.getTo() != null
+                || request.getUserId() != null;
+        if (byIds == byFilter) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Select orders either by ids or by a filter (status, from, to, userId)");
+        }
+        if (request.getFrom() != null && request.getTo() != null && !request.getFrom().isBefore(request.getTo())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must be before to");
+        }
+        Set<OrderStatus> fromStatuses = target.previousStatuses();
+        if (request.getStatus() != null) {
+            if (!fromStatuses.contains(request.getStatus())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Orders cannot go from " + request.getStatus() + " to " + target);
+            }
+            fromStatuses = Set.of(request.getStatus());
+        }
+
+        List<Long> updatedIds = new ArrayList<>();
+        List<Long> skippedIds = List.of();
+        int updated = 0;
+        Set<OrderStatus> allowed = fromStatuses;
+        if (byIds) {
+            List<Long> ids = request.getIds().stream().filter(Objects::nonNull).distinct().sorted().toList();
+            for (int start = 0; start < ids.size(); start += chunkSize) {
+                List<Long> chunk = ids.subList(start, Math.min(start + chunkSize, ids.size()));
+                applyChunk(chunk, allowed, target).forEach(row -> updatedIds.add(row.id()));
+            }
+            updated = updatedIds.size();
+            Set<Long> updatedSet = new HashSet<>(updatedIds);
+            skippedIds = ids.stream().filter(id -> !updatedSet.contains(id)).toList();
+        } else {
+            // a filter can match any number of orders: the ids reported are capped, the count is not
+            long afterId = 0;
+            List<Long> candidates;
+            do {
+                candidates = orderStatusRepository.findIdsByFilter(allowed, request.getFrom(), request.getTo(),
+                        request.getUserId(), afterId, chunkSize);
+                if (!candidates.isEmpty()) {
+                    // candidates changed meanwhile are left out by the lock, the next page starts after all of them
+                    for (OrderStatusRow row : applyChunk(candidates, allowed, target)) {
+                        if (updatedIds.size() < maxReportedIds) {
+                            updatedIds.add(row.id());
+                        }
+                        updated++;
+                    }
+                    afterId = candidates.getLast();
+                }
+            } while (candidates.size() == chunkSize);
+        }
+
+        if (updated > 0) {
+            log.info("Bulk status change to {}: {} orders updated, {} skipped", target, updated, skippedIds.size());
+        }
+        return BulkStatusResponse.builder()
+                .status(target.name())
+                .updated(updated)
+                .updatedIds(updatedIds)
+                .skippedIds(skippedIds)
+                .build();
+    }
+
+    private List<OrderStatusRow> applyChunk(List<Long> ids, Set<OrderStatus> fromStatuses, OrderStatus target) {
+        return transactionTemplate.execute(status -> {
+            List<OrderStatusRow> locked = orderStatusRepository.lockByIds(ids, fromStatuses);
+            if (locked.isEmpty()) {
+                return locked;
+            }
+            // the rows are locked in an allowed status, so all of them are updated
+            orderStatusRepository.updateStatus(locked.stream().map(OrderStatusRow::id).toList(), fromStatuses, target);
+            for (OrderStatusRow row : locked) {
+                // delivered to the order feed and the response cache once the chunk is committed
+                eventPublisher.publishEvent(new OrderChangedEvent(OrderEventType.ORDER_STATUS_CHANGED,
+                        OrderResponse.builder()
+                                .id(row.id())
+                                .orderDate(row.orderDate())
+                                .status(target.name())
+                                .totalAmount(row.totalAmount())
+                                .build()));
+            }
+            return locked;
+        });
+    }
+}
@@ -0,0 +1,20 @@
+-- Schema previously created by hibernate ddl-auto=update.
+-- IF NOT EXISTS keeps this migration safe on databases that already have it (baseline version 0).
+CREATE TABLE IF NOT EXISTS orders
+(
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    order_date   TIMESTAMP(6),
+    status       VARCHAR(255),
+    total_amount DOUBLE PRECISION NOT NULL,
+    user_id      VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS order_items
+(
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    order_id   BIGINT           NOT NULL REFERENCES orders (id),
+    product_id BIGINT,
+    quantity   INTEGER          NOT NULL,
+    unit_price DOUBLE PRECISION NOT NULL,
+    line_total DOUBLE PRECISION NOT NULL
+);
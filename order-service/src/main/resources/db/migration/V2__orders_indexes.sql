@@ -0,0 +1,8 @@
+-- findByUserId (my orders), newest first
+CREATE INDEX IF NOT EXISTS idx_orders_user_id_order_date ON orders (user_id, order_date);
+
+-- admin listings by date and archival scans
+CREATE INDEX IF NOT EXISTS idx_orders_order_date ON orders (order_date);
+
+-- loading the items of an order
+CREATE INDEX IF NOT EXISTS idx_order_items_order_id ON order_items (order_id);
@@ -0,0 +1,24 @@
+-- Cold storage for orders older than order.archive.max-age, filled in batches by OrderArchiver.
+-- Ids are kept so that GET /orders/{id} still resolves archived orders.
+CREATE TABLE IF NOT EXISTS orders_archive
+(
+    id           BIGINT PRIMARY KEY,
+    order_date   TIMESTAMP(6),
+    status       VARCHAR(255),
+    total_amount DOUBLE PRECISION NOT NULL,
+    user_id      VARCHAR(255),
+    archived_at  TIMESTAMP(6)     NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS order_items_archive
+(
+    id         BIGINT PRIMARY KEY,
+    order_id   BIGINT           NOT NULL REFERENCES orders_archive (id),
+    product_id BIGINT,
+    quantity   INTEGER          NOT NULL,
+    unit_price DOUBLE PRECISION NOT NULL,
+    line_total DOUBLE PRECISION NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_orders_archive_user_id ON orders_archive (user_id);
+CREATE INDEX IF NOT EXISTS idx_order_items_archive_order_id ON order_items_archive (order_id);
@@ -0,0 +1,3 @@
+-- Incremented on every status change: identifies the cached serialized views of an order.
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS status_version INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE orders_archive ADD COLUMN IF NOT EXISTS status_version INTEGER NOT NULL DEFAULT 0;
@@ -0,0 +1,87 @@
+package ma.enset.orderservice.archive;
+
+import ma.enset.orderservice.entities.Order;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the Flyway migrations on an embedded H2 database (PostgreSQL mode) and archives orders in batches.
+ */
+class OrderArchiverTest {
+
+    private NamedParameterJdbcTemplate jdbc;
+    private OrderArchiver archiver;
+    private OrderArchiveRepository archiveRepository;
+
+    @BeforeEach
+    void setUp() {
+        SimpleDriverDataSource dataSource = new SimpleDriverDataSource(new org.h2.Driver(),
+                "jdbc:h2:mem:archive;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbc = new NamedParameterJdbcTemplate(dataSource);
+        archiver = new OrderArchiver(jdbc, new TransactionTemplate(new DataSourceTransactionManager(dataSource)),
+                Duration.ofDays(365), 2);
+        archiveRepository = new OrderArchiveRepository(jdbc);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbc.getJdbcTemplate().execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void movesOldOrdersAndTheirItemsInBatches() {
+        LocalDateTime now = LocalDateTime.now();
+        long old1 = insertOrder(now.minusDays(800), 2);
+        long old2 = insertOrder(now.minusDays(500), 1);
+        long old3 = insertOrder(now.minusDays(400), 3);
+        long recent = insertOrder(now.minusDays(10), 1);
+
+        int archived = archiver.archiveOlderThan(now.minusDays(365));
+
+        assertEquals(3, archived);
+        assertEquals(1, count("orders"));
+        assertEquals(1, count("order_items"));
+        assertEquals(3, count("orders_archive"));
+        assertEquals(6, count("order_items_archive"));
+
+        Order archivedOrder = archiveRepository.findById(old3).orElseThrow();
+        assertEquals("user-1", archivedOrder.getUserId());
+        assertEquals(3, archivedOrder.getItems().size());
+        assertTrue(archiveRepository.findById(old1).isPresent());
+        assertTrue(archiveRepository.findById(old2).isPresent());
+        assertTrue(archiveRepository.findById(recent).isEmpty());
+    }
+
+    private long insertOrder(LocalDateTime orderDate, int items) {
+        MapSqlParameterSource params = new MapSqlParameterSource("orderDate", orderDate);
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbc.update("INSERT INTO orders (order_date, status, total_amount, user_id) "
+                + "VALUES (:orderDate, 'CONFIRMED', 10.0, 'user-1')", params, keyHolder, new String[]{"id"});
+        long id = keyHolder.getKey().longValue();
+        for (int i = 0; i < items; i++) {
+            jdbc.update("INSERT INTO order_items (order_id, product_id, quantity, unit_price, line_total) "
+                    + "VALUES (:orderId, 1, 1, 10.0, 10.0)", new MapSqlParameterSource("orderId", id));
+        }
+        return id;
+    }
+
+    private int count(String table) {
+        return jdbc.getJdbcTemplate().queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+}
@@ -0,0 +1,68 @@
+package ma.enset.orderservice.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import ma.enset.orderservice.entities.Order;
+import ma.enset.orderservice.mappers.OrderMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cost of serving a cached order compared to mapping and serializing it on each request. Numbers
+ * are printed, not asserted: they depend on the machine. The query saved on a hit (the items of the
+ * order) is not included, see OrderControllerQueryBudgetTest.
+ * <p>
+ * Opt-in: {@code mvn test -Dtest=OrderResponseCacheBenchmarkTest -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class OrderResponseCacheBenchmarkTest {
+
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 100_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final OrderMapper orderMapper = new OrderMapper();
+
+    @Test
+    void cachedBytesVersusMappingAndSerializing() throws Exception {
+        OrderResponseCache cache = new OrderResponseCache(objectMapper, 10);
+        Order order = OrderResponseCacheTest.order(42L, 5);
+        cache.put(orderMapper.toResponse(order), 0);
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long[] uncached = measure(threads, () -> objectMapper.writeValueAsBytes(orderMapper.toResponse(order)).length);
+        long[] cached = measure(threads, () -> cache.get(42L, 0).length);
+
+        System.out.printf("map+serialize: %7.0f ns, %6d bytes allocated per request%n",
+                (double) uncached[0] / ITERATIONS, uncached[1] / ITERATIONS);
+        System.out.printf("cached bytes:  %7.0f ns, %6d bytes allocated per request%n",
+                (double) cached[0] / ITERATIONS, cached[1] / ITERATIONS);
+        assertTrue(cached[1] < uncached[1]);
+    }
+
+    private long[] measure(com.sun.management.ThreadMXBean threads, Request request) throws Exception {
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += request.run();
+        }
+        long threadId = Thread.currentThread().threadId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += request.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        assertTrue(sink > 0);
+        return new long[] {elapsed, allocated};
+    }
+
+    @FunctionalInterface
+    private interface Request {
+        int run() throws Exception;
+    }
+}
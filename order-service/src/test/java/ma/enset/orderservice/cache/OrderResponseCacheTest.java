@@ -0,0 +1,73 @@
+package ma.enset.orderservice.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import ma.enset.orderservice.dtos.OrderResponse;
+import ma.enset.orderservice.entities.Order;
+import ma.enset.orderservice.entities.OrderItem;
+import ma.enset.orderservice.entities.OrderStatus;
+import ma.enset.orderservice.events.OrderChangedEvent;
+import ma.enset.orderservice.events.OrderEventType;
+import ma.enset.orderservice.mappers.OrderMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Cache semantics: versioned entries and eviction. The cost of a hit is measured by
+ * {@link OrderResponseCacheBenchmarkTest}.
+ */
+class OrderResponseCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final OrderMapper orderMapper = new OrderMapper();
+
+    @Test
+    void entryIsOnlyServedForItsStatusVersion() {
+        OrderResponseCache cache = new OrderResponseCache(objectMapper, 10);
+        byte[] json = cache.put(orderMapper.toResponse(order(1L, 3)), 0);
+
+        assertArrayEquals(json, cache.get(1L, 0));
+        assertNull(cache.get(1L, 1));
+
+        // an older version read concurrently does not replace a newer one
+        cache.put(orderMapper.toResponse(order(1L, 3)), 2);
+        cache.put(orderMapper.toResponse(order(1L, 3)), 1);
+        assertNotNull(cache.get(1L, 2));
+
+        cache.onOrderChanged(new OrderChangedEvent(OrderEventType.ORDER_STATUS_CHANGED, OrderResponse.builder().id(1L).build()));
+        assertNull(cache.get(1L, 2));
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvicted() {
+        OrderResponseCache cache = new OrderResponseCache(objectMapper, 2);
+        cache.put(orderMapper.toResponse(order(1L, 1)), 0);
+        cache.put(orderMapper.toResponse(order(2L, 1)), 0);
+        cache.get(1L, 0);
+        cache.put(orderMapper.toResponse(order(3L, 1)), 0);
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get(1L, 0));
+        assertNull(cache.get(2L, 0));
+    }
+
+    static Order order(Long id, int items) {
+        Order order = Order.builder()
+                .id(id)
+                .orderDate(LocalDateTime.of(2024, 5, 1, 10, 30))
+                .status(OrderStatus.CONFIRMED)
+                .userId("alice")
+                .totalAmount(19.99 * items)
+                .build();
+        for (int i = 0; i < items; i++) {
+            order.addItem(OrderItem.builder().productId((long) i + 1).quantity(1).unitPrice(19.99).lineTotal(19.99).build());
+        }
+        return order;
+    }
+}
@@ -0,0 +1,173 @@
+package ma.enset.orderservice.controller;
+
+import ma.enset.orderservice.entities.Order;
+import ma.enset.orderservice.entities.OrderItem;
+import ma.enset.orderservice.entities.OrderStatus;
+import ma.enset.orderservice.feign.ProductClient;
+import ma.enset.orderservice.models.Product;
+import ma.enset.commons.querycount.QueryScope;
+import ma.enset.orderservice.repository.OrderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.json.JsonCompareMode;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.time.LocalDateTime;
+
+import static ma.enset.commons.querycount.QueryBudgetAssertions.assertMaxQueries;
+import static ma.enset.commons.querycount.QueryBudgetAssertions.assertQueryCount;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Query budgets of the {@link OrderController} endpoints, on an embedded H2 database migrated by Flyway.
+ */
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "config.watch.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:order-query-budget;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=none"
+})
+@AutoConfigureMockMvc
+class OrderControllerQueryBudgetTest {
+
+    private static final RequestPostProcessor ALICE = jwt().jwt(jwt -> jwt.subject("alice"))
+            .authorities(new SimpleGrantedAuthority("SCOPE_CLIENT"));
+    private static final RequestPostProcessor BOB = jwt().jwt(jwt -> jwt.subject("bob"))
+            .authorities(new SimpleGrantedAuthority("SCOPE_CLIENT"));
+    private static final RequestPostProcessor ADMIN = jwt().jwt(jwt -> jwt.subject("admin"))
+            .authorities(new SimpleGrantedAuthority("SCOPE_ADMIN"));
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @MockitoBean
+    private ProductClient productClient;
+
+    @MockitoBean
+    private JwtDecoder jwtDecoder;
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll();
+    }
+
+    @Test
+    void orderByIdLoadsTheOrderAndItsItems() throws Exception {
+        Order order = saveOrder("alice", 3);
+
+        QueryScope scope = assertMaxQueries(2, () -> mockMvc.perform(get("/orders/{id}", order.getId()).with(ALICE))
+                .andExpect(status().isOk()));
+
+        assertEquals(scope.getCount(), scope.getChildren().get("OrderServiceImpl.getOrderJsonById").getCount());
+    }
+
+    @Test
+    void cachedOrderIsServedWithoutLoadingItsItems() throws Exception {
+        Order order = saveOrder("alice", 3);
+        String json = mockMvc.perform(get("/orders/{id}", order.getId()).with(ALICE))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertQueryCount(1, () -> mockMvc.perform(get("/orders/{id}", order.getId()).with(ALICE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().json(json, JsonCompareMode.STRICT)));
+        // the access check still applies to cached orders
+        mockMvc.perform(get("/orders/{id}", order.getId()).with(BOB))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/orders/{id}", order.getId()).with(ADMIN))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void createOrderInsertsTheOrderAndOneRowPerItem() throws Exception {
+        given(productClient.getProduct(1L)).willReturn(product(1L));
+        given(productClient.getProduct(2L)).willReturn(product(2L));
+
+        assertQueryCount(3, () -> mockMvc.perform(post("/orders").with(ALICE)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"items\":[{\"productId\":1,\"quantity\":2},{\"productId\":2,\"quantity\":1}]}"))
+                .andExpect(status().isCreated()));
+    }
+
+    @Test
+    void bulkConfirmLocksAndUpdatesTheOrdersWithoutLoadingThem() throws Exception {
+        Order order1 = saveOrder("alice", 3, OrderStatus.PENDING);
+        Order order2 = saveOrder("bob", 2, OrderStatus.PENDING);
+        String request = "{\"ids\":[" + order1.getId() + "," + order2.getId() + "]}";
+
+        mockMvc.perform(post("/orders/bulk/confirm").with(ALICE)
+                        .contentType(MediaType.APPLICATION_JSON).content(request))
+                .andExpect(status().isForbidden());
+        // one chunk: a locking select and an update, whatever the number of orders and items
+        assertQueryCount(2, () -> mockMvc.perform(post("/orders/bulk/confirm").with(ADMIN)
+                        .contentType(MediaType.APPLICATION_JSON).content(request))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(2)));
+        assertEquals(OrderStatus.CONFIRMED, orderRepository.findById(order1.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void myOrdersAreReadWithTheirItemsInOneQuery() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            saveOrder("alice", 2);
+        }
+        saveOrder("bob", 2);
+
+        assertQueryCount(1, () -> mockMvc.perform(get("/orders/me").with(ALICE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].items.length()").value(2))
+                .andExpect(jsonPath("$[2].items.length()").value(2)));
+    }
+
+    @Test
+    void allOrdersAreReadWithTheirItemsInOneQuery() throws Exception {
+        saveOrder("alice", 2);
+        saveOrder("bob", 3);
+
+        assertQueryCount(1, () -> mockMvc.perform(get("/orders").with(ADMIN))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2)));
+    }
+
+    private Order saveOrder(String userId, int items) {
+        return saveOrder(userId, items, OrderStatus.CONFIRMED);
+    }
+
+    private Order saveOrder(String userId, int items, OrderStatus status) {
+        Order order = Order.builder()
+                .orderDate(LocalDateTime.now())
+                .status(status)
+                .userId(userId)
+                .totalAmount(10.0 * items)
+                .build();
+        for (int i = 0; i < items; i++) {
+            order.addItem(OrderItem.builder().productId((long) i + 1).quantity(1).unitPrice(10.0).lineTotal(10.0).build());
+        }
+        return orderRepository.save(order);
+    }
+
+    private static Product product(Long id) {
+        return Product.builder().id(id).name("Product " + id).price(5.0).quantity(100).build();
+    }
+}
@@ -0,0 +1,173 @@
+package ma.enset.orderservice.datasource;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Routing against two embedded H2 databases, one playing the primary and one the replica.
+ * Each database has a {@code node} table holding its own name, so a query tells where it ran.
+ */
+class ReadWriteRoutingDataSourceTest {
+
+    private JdbcTemplate primaryJdbc;
+    private JdbcTemplate replicaJdbc;
+    private FailingDataSource replica;
+    private ReplicaHealthMonitor monitor;
+    private ReadYourWritesTracker readYourWrites;
+    private LazyConnectionDataSourceProxy dataSource;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        SimpleDriverDataSource primary = h2("primary");
+        replica = new FailingDataSource(h2("replica"));
+        primaryJdbc = new JdbcTemplate(primary);
+        replicaJdbc = new JdbcTemplate(replica);
+        primaryJdbc.execute("CREATE TABLE node (name VARCHAR(20))");
+        primaryJdbc.update("INSERT INTO node VALUES ('primary')");
+        replicaJdbc.execute("CREATE TABLE node (name VARCHAR(20))");
+        replicaJdbc.update("INSERT INTO node VALUES ('replica')");
+        replicaJdbc.execute("CREATE TABLE replica_status (lag_seconds DOUBLE)");
+        replicaJdbc.update("INSERT INTO replica_status VALUES (0)");
+
+        monitor = new ReplicaHealthMonitor(List.of(new ReplicaTarget("replica-0", replica)),
+                "SELECT lag_seconds FROM replica_status", Duration.ofSeconds(5), Duration.ofSeconds(5));
+        monitor.check();
+        readYourWrites = new ReadYourWritesTracker(Duration.ofSeconds(10));
+
+        dataSource = new LazyConnectionDataSourceProxy(
+                new ReadWriteRoutingDataSource(primary, monitor.getReplicas(), readYourWrites));
+        jdbc = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        primaryJdbc.execute("DROP ALL OBJECTS");
+        replicaJdbc.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void readOnlyTransactionsGoToTheReplica() {
+        assertEquals("replica", readOnly.execute(status -> node()));
+        assertEquals("primary", readWrite.execute(status -> node()));
+    }
+
+    @Test
+    void laggingReplicaFallsBackToPrimaryUntilItCatchesUp() {
+        replicaJdbc.update("UPDATE replica_status SET lag_seconds = 30");
+        monitor.check();
+        assertEquals("primary", readOnly.execute(status -> node()));
+
+        replicaJdbc.update("UPDATE replica_status SET lag_seconds = 1");
+        monitor.check();
+        assertEquals("replica", readOnly.execute(status -> node()));
+    }
+
+    @Test
+    void failingReplicaFallsBackToPrimary() {
+        replica.down = true;
+        assertEquals("primary", readOnly.execute(status -> node()));
+
+        // marked unavailable until the next successful health check
+        replica.down = false;
+        assertEquals("primary", readOnly.execute(status -> node()));
+        monitor.check();
+        assertEquals("replica", readOnly.execute(status -> node()));
+    }
+
+    @Test
+    void userWhoJustWroteReadsFromPrimary() {
+        readYourWrites.recordWrite("alice");
+
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("alice", null));
+        assertEquals("primary", readOnly.execute(status -> node()));
+
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("bob", null));
+        assertEquals("replica", readOnly.execute(status -> node()));
+    }
+
+    @Test
+    void readOnlyJpaTransactionsGoToTheReplica() {
+        // the services run on JpaTransactionManager, which begins the Hibernate transaction before
+        // the read-only flag is published: routing must still see it when the first statement runs
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(dataSource);
+        factory.setPackagesToScan(ReadWriteRoutingDataSourceTest.class.getPackageName());
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.afterPropertiesSet();
+        try {
+            JpaTransactionManager transactionManager = new JpaTransactionManager(factory.getObject());
+            TransactionTemplate jpaReadWrite = new TransactionTemplate(transactionManager);
+            TransactionTemplate jpaReadOnly = new TransactionTemplate(transactionManager);
+            jpaReadOnly.setReadOnly(true);
+            EntityManager entityManager = SharedEntityManagerCreator.createSharedEntityManager(factory.getObject());
+
+            assertEquals("replica", jpaReadOnly.execute(status -> node(entityManager)));
+            assertEquals("primary", jpaReadWrite.execute(status -> node(entityManager)));
+
+            readYourWrites.recordWrite("alice");
+            SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("alice", null));
+            assertEquals("primary", jpaReadOnly.execute(status -> node(entityManager)));
+        }
+        finally {
+            factory.destroy();
+        }
+    }
+
+    private static Object node(EntityManager entityManager) {
+        return entityManager.createNativeQuery("SELECT name FROM node").getSingleResult();
+    }
+
+    private String node() {
+        return jdbc.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private static SimpleDriverDataSource h2(String name) {
+        return new SimpleDriverDataSource(new org.h2.Driver(), "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    private static class FailingDataSource extends DelegatingDataSource {
+
+        private volatile boolean down;
+
+        FailingDataSource(SimpleDriverDataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (down) {
+                throw new SQLException("replica is down");
+            }
+            return super.getConnection();
+        }
+    }
+}
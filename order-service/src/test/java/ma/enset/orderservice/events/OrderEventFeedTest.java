@@ -0,0 +1,179 @@
+package ma.enset.orderservice.events;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ma.enset.orderservice.dtos.OrderResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Subscribers of the {@link OrderEventFeed} with emitters that record what would be written to the
+ * connection, one string per event.
+ */
+class OrderEventFeedTest {
+
+    private final OrderEventFeed feed = new OrderEventFeed(new ObjectMapper(), 8,
+            Duration.ofMinutes(1), Duration.ofSeconds(1), 10);
+
+    @AfterEach
+    void tearDown() {
+        feed.destroy();
+    }
+
+    @Test
+    void newSubscriberReceivesEventsPublishedAfterIt() throws Exception {
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.subscribe(null, emitter);
+        String ready = emitter.next();
+        assertTrue(ready.contains("event:ready"), ready);
+
+        publish(1L);
+        publish(2L);
+
+        assertTrue(emitter.next().contains("\"id\":1"));
+        assertTrue(emitter.next().contains("\"id\":2"));
+    }
+
+    @Test
+    void reconnectingSubscriberResumesAfterTheLastEventId() throws Exception {
+        RecordingEmitter first = new RecordingEmitter();
+        feed.subscribe(null, first);
+        first.next();
+        publish(1L);
+        String received = first.next();
+        first.complete();
+        publish(2L);
+        publish(3L);
+
+        RecordingEmitter second = new RecordingEmitter();
+        feed.subscribe(idOf(received), second);
+        assertTrue(second.next().contains("\"id\":2"));
+        assertTrue(second.next().contains("\"id\":3"));
+    }
+
+    @Test
+    void subscriberTooFarBehindIsReset() throws Exception {
+        RecordingEmitter first = new RecordingEmitter();
+        feed.subscribe(null, first);
+        long lastEventId = idOf(first.next());
+        first.complete();
+        for (long id = 1; id <= 20; id++) {
+            publish(id);
+        }
+
+        RecordingEmitter second = new RecordingEmitter();
+        feed.subscribe(lastEventId, second);
+        assertTrue(second.next().contains("event:reset"));
+        publish(21L);
+        assertTrue(second.next().contains("\"id\":21"));
+    }
+
+    @Test
+    void slowSubscriberDoesNotBlockPublishers() throws Exception {
+        CountDownLatch released = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                try {
+                    released.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                super.send(builder);
+            }
+        };
+        feed.subscribe(null, slow);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(2), () -> {
+            for (long id = 1; id <= 1000; id++) {
+                publish(id);
+            }
+        });
+
+        released.countDown();
+        assertTrue(slow.next().contains("event:ready"));
+        // the 1000 events overran the buffer while the subscriber was stuck
+        String next = slow.next();
+        while (!next.contains("event:reset")) {
+            next = slow.next();
+        }
+    }
+
+    @Test
+    void concurrentSubscriptionsStopAtTheLimit() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger accepted = new AtomicInteger();
+        try (ExecutorService executor = Executors.newFixedThreadPool(50)) {
+            for (int i = 0; i < 50; i++) {
+                executor.submit(() -> {
+                    start.await();
+                    try {
+                        feed.subscribe(null, new RecordingEmitter());
+                        accepted.incrementAndGet();
+                    } catch (ResponseStatusException e) {
+                        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+        }
+
+        assertEquals(10, accepted.get());
+        assertEquals(10, feed.subscriberCount());
+    }
+
+    private void publish(long orderId) {
+        feed.onOrderChanged(new OrderChangedEvent(OrderEventType.ORDER_CREATED,
+                OrderResponse.builder().id(orderId).status("PENDING").totalAmount(10.0).items(List.of()).build()));
+    }
+
+    private static long idOf(String event) {
+        String line = event.lines().filter(l -> l.startsWith("id:")).findFirst().orElseThrow();
+        return Long.parseLong(line.substring(3));
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            String event = builder.build().stream()
+                    .map(ResponseBodyEmitter.DataWithMediaType::getData)
+                    .map(String::valueOf)
+                    .collect(Collectors.joining());
+            if (!event.startsWith(":")) {
+                events.add(event);
+            }
+        }
+
+        String next() throws InterruptedException {
+            String event = events.poll(5, TimeUnit.SECONDS);
+            if (event == null) {
+                throw new AssertionError("no event received");
+            }
+            return event;
+        }
+    }
+}
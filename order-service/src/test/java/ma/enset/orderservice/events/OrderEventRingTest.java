@@ -0,0 +1,57 @@
+package ma.enset.orderservice.events;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderEventRingTest {
+
+    @Test
+    void readsTheEventsAfterACursor() throws InterruptedException {
+        OrderEventRing ring = new OrderEventRing(4, 100);
+        ring.append(OrderEventType.ORDER_CREATED, "a");
+        ring.append(OrderEventType.ORDER_CREATED, "b");
+        ring.append(OrderEventType.ORDER_STATUS_CHANGED, "c");
+
+        List<OrderEvent> events = ring.awaitAfter(101, Duration.ZERO, 10);
+        assertEquals(List.of(102L, 103L), events.stream().map(OrderEvent::id).toList());
+        assertEquals("c", events.get(1).data());
+        assertEquals(1, ring.awaitAfter(100, Duration.ZERO, 1).size());
+        assertTrue(ring.awaitAfter(103, Duration.ofMillis(10), 10).isEmpty());
+    }
+
+    @Test
+    void overwrittenEventsCannotBeResumed() throws InterruptedException {
+        OrderEventRing ring = new OrderEventRing(4, 100);
+        for (int i = 0; i < 6; i++) {
+            ring.append(OrderEventType.ORDER_CREATED, "e" + i);
+        }
+        // 101 and 102 were overwritten: resuming after 102 is still complete, after 101 is not
+        assertEquals(4, ring.awaitAfter(102, Duration.ZERO, 10).size());
+        assertNull(ring.awaitAfter(101, Duration.ZERO, 10));
+        // ids from a previous run of the service, or not issued yet
+        assertFalse(ring.canResumeFrom(50));
+        assertFalse(ring.canResumeFrom(107));
+    }
+
+    @Test
+    void readerIsWokenUpByAppend() throws InterruptedException {
+        OrderEventRing ring = new OrderEventRing(4, 0);
+        Thread.ofVirtual().start(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ring.append(OrderEventType.ORDER_CREATED, "late");
+        });
+        List<OrderEvent> events = ring.awaitAfter(0, Duration.ofSeconds(5), 10);
+        assertEquals("late", events.getFirst().data());
+    }
+}
@@ -0,0 +1,104 @@
+package ma.enset.orderservice.feign;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import ma.enset.orderservice.models.Product;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Encode/decode cost of a product payload in JSON and CBOR, for a single product (one order line)
+ * and a batch of products. Numbers are printed, not asserted: they depend on the machine.
+ * <p>
+ * Opt-in: {@code mvn test -Dtest=ProductCodecBenchmarkTest -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ProductCodecBenchmarkTest {
+
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 50_000;
+    private static final int BATCH_SIZE = 50;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final ObjectMapper cbor = new CBORMapper();
+
+    @Test
+    void singleProduct() throws Exception {
+        Product product = product(42);
+        report("single", product, Product.class);
+    }
+
+    @Test
+    void productBatch() throws Exception {
+        List<Product> batch = LongStream.rangeClosed(1, BATCH_SIZE).mapToObj(this::product).toList();
+        report("batch(" + BATCH_SIZE + ")", batch, new TypeReference<List<Product>>() {
+        });
+    }
+
+    private void report(String name, Object payload, Class<?> type) throws Exception {
+        report(name, payload, json.constructType(type));
+    }
+
+    private void report(String name, Object payload, TypeReference<?> type) throws Exception {
+        report(name, payload, json.constructType(type));
+    }
+
+    private void report(String name, Object payload, JavaType type) throws Exception {
+        byte[] jsonBytes = json.writeValueAsBytes(payload);
+        byte[] cborBytes = cbor.writeValueAsBytes(payload);
+        assertEquals(json.writeValueAsString(json.readValue(jsonBytes, type)),
+                json.writeValueAsString(cbor.readValue(cborBytes, type)));
+        assertTrue(cborBytes.length < jsonBytes.length);
+
+        System.out.printf("%-10s json: %5d bytes, encode %7.0f ns, decode %7.0f ns%n", name, jsonBytes.length,
+                encodeNanos(json, payload), decodeNanos(json, jsonBytes, type));
+        System.out.printf("%-10s cbor: %5d bytes, encode %7.0f ns, decode %7.0f ns%n", name, cborBytes.length,
+                encodeNanos(cbor, payload), decodeNanos(cbor, cborBytes, type));
+    }
+
+    private double encodeNanos(ObjectMapper mapper, Object payload) throws Exception {
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += mapper.writeValueAsBytes(payload).length;
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += mapper.writeValueAsBytes(payload).length;
+        }
+        long elapsed = System.nanoTime() - start;
+        assertTrue(sink > 0);
+        return (double) elapsed / ITERATIONS;
+    }
+
+    private double decodeNanos(ObjectMapper mapper, byte[] bytes, JavaType type) throws Exception {
+        int sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += mapper.readValue(bytes, type).hashCode() & 1;
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += mapper.readValue(bytes, type).hashCode() & 1;
+        }
+        long elapsed = System.nanoTime() - start;
+        assertTrue(sink >= 0);
+        return (double) elapsed / ITERATIONS;
+    }
+
+    private Product product(long id) {
+        return Product.builder()
+                .id(id)
+                .name("Product " + id)
+                .description("Description of product " + id + " used to size a realistic payload")
+                .price(19.99 + id)
+                .quantity((int) (100 + id))
+                .build();
+    }
+}
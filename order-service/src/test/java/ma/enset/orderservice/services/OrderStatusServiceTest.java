@@ -0,0 +1,217 @@
+package ma.enset.orderservice.services;
+
+import ma.enset.orderservice.dtos.BulkStatusRequest;
+import ma.enset.orderservice.dtos.BulkStatusResponse;
+import ma.enset.orderservice.entities.OrderStatus;
+import ma.enset.orderservice.events.OrderChangedEvent;
+import ma.enset.orderservice.repository.OrderStatusRepository;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Bulk status changes on an embedded H2 database (PostgreSQL mode) migrated by Flyway.
+ */
+class OrderStatusServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    private NamedParameterJdbcTemplate jdbc;
+    private TransactionTemplate transactionTemplate;
+    private OrderStatusService service;
+    private final List<OrderChangedEvent> events = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        SimpleDriverDataSource dataSource = new SimpleDriverDataSource(new org.h2.Driver(),
+                "jdbc:h2:mem:bulk-status;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbc = new NamedParameterJdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        service = service(new OrderStatusRepository(jdbc), 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbc.getJdbcTemplate().execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void confirmsRequestedIdsAndReportsTheOthers() {
+        long pending1 = insertOrder("alice", OrderStatus.PENDING, NOW);
+        long pending2 = insertOrder("bob", OrderStatus.PENDING, NOW);
+        long pending3 = insertOrder("bob", OrderStatus.PENDING, NOW);
+        long cancelled = insertOrder("alice", OrderStatus.CANCELLED, NOW);
+
+        BulkStatusResponse response = service.confirmOrders(byIds(pending3, cancelled, pending1, pending2, 999L));
+
+        assertEquals(3, response.getUpdated());
+        assertEquals(List.of(pending1, pending2, pending3), response.getUpdatedIds());
+        assertEquals(List.of(cancelled, 999L), response.getSkippedIds());
+        assertEquals("CONFIRMED", status(pending1));
+        assertEquals(1, statusVersion(pending1));
+        assertEquals("CANCELLED", status(cancelled));
+        assertEquals(0, statusVersion(cancelled));
+        assertEquals(3, events.size());
+    }
+
+    @Test
+    void cancelsOrdersMatchingAFilterInChunks() {
+        List<Long> matching = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            matching.add(insertOrder("alice", OrderStatus.PENDING, NOW.minusDays(2)));
+        }
+        insertOrder("alice", OrderStatus.CONFIRMED, NOW.minusDays(2));
+        insertOrder("alice", OrderStatus.PENDING, NOW.minusDays(10));
+        insertOrder("bob", OrderStatus.PENDING, NOW.minusDays(2));
+
+        BulkStatusRequest filter = new BulkStatusRequest();
+        filter.setStatus(OrderStatus.PENDING);
+        filter.setFrom(NOW.minusDays(3));
+        filter.setTo(NOW);
+        filter.setUserId("alice");
+        BulkStatusResponse response = service.cancelOrders(filter);
+
+        assertEquals(matching, response.getUpdatedIds());
+        assertEquals(0, count("SELECT COUNT(*) FROM orders WHERE status = 'CANCELLED' AND user_id = 'bob'"));
+        assertEquals(5, count("SELECT COUNT(*) FROM orders WHERE status = 'CANCELLED'"));
+    }
+
+    @Test
+    void filterReportsACappedListOfIdsButTheFullCount() {
+        List<Long> matching = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            matching.add(insertOrder("alice", OrderStatus.PENDING, NOW));
+        }
+
+        BulkStatusRequest filter = new BulkStatusRequest();
+        filter.setUserId("alice");
+        BulkStatusResponse response = service.confirmOrders(filter);
+
+        assertEquals(25, response.getUpdated());
+        assertEquals(matching.subList(0, 10), response.getUpdatedIds());
+        assertEquals(25, events.size());
+    }
+
+    @Test
+    void filterGoesOnPastCandidatesChangedConcurrently() {
+        List<Long> matching = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            matching.add(insertOrder("alice", OrderStatus.PENDING, NOW));
+        }
+        // the first order of the first page is cancelled between the page read and its lock
+        OrderStatusRepository racing = new OrderStatusRepository(jdbc) {
+            @Override
+            public List<Long> findIdsByFilter(Set<OrderStatus> fromStatuses, LocalDateTime from, LocalDateTime to,
+                                              String userId, long afterId, int limit) {
+                List<Long> ids = super.findIdsByFilter(fromStatuses, from, to, userId, afterId, limit);
+                if (afterId == 0) {
+                    jdbc.update("UPDATE orders SET status = 'CANCELLED' WHERE id = :id", new MapSqlParameterSource("id", ids.getFirst()));
+                }
+                return ids;
+            }
+        };
+
+        BulkStatusRequest filter = new BulkStatusRequest();
+        filter.setStatus(OrderStatus.PENDING);
+        BulkStatusResponse response = service(racing, 10).confirmOrders(filter);
+
+        assertEquals(matching.subList(1, 6), response.getUpdatedIds());
+        assertEquals(5, count("SELECT COUNT(*) FROM orders WHERE status = 'CONFIRMED'"));
+    }
+
+    @Test
+    void rejectsAmbiguousOrImpossibleRequests() {
+        assertThrows(ResponseStatusException.class, () -> service.confirmOrders(new BulkStatusRequest()));
+
+        BulkStatusRequest both = byIds(1L);
+        both.setUserId("alice");
+        assertThrows(ResponseStatusException.class, () -> service.confirmOrders(both));
+
+        BulkStatusRequest cancelledToConfirmed = new BulkStatusRequest();
+        cancelledToConfirmed.setStatus(OrderStatus.CANCELLED);
+        assertThrows(ResponseStatusException.class, () -> service.confirmOrders(cancelledToConfirmed));
+    }
+
+    @Test
+    void concurrentConfirmAndCancelNeverUndoACancellation() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            ids.add(insertOrder("user" + i % 7, OrderStatus.PENDING, NOW));
+        }
+        BulkStatusResponse confirmed;
+        BulkStatusResponse cancelled;
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            Future<BulkStatusResponse> confirm = executor.submit(() -> service.confirmOrders(byIds(ids.toArray(Long[]::new))));
+            Future<BulkStatusResponse> cancel = executor.submit(() -> service.cancelOrders(byIds(ids.toArray(Long[]::new))));
+            confirmed = confirm.get();
+            cancelled = cancel.get();
+        }
+
+        // cancellation is allowed from both other statuses, so it applies to every order, after or
+        // instead of the confirmation; a confirmation never overwrites a cancellation
+        assertEquals(200, cancelled.getUpdated());
+        assertEquals(200, count("SELECT COUNT(*) FROM orders WHERE status = 'CANCELLED'"));
+        assertEquals(confirmed.getUpdated() + cancelled.getUpdated(),
+                count("SELECT COALESCE(SUM(status_version), 0) FROM orders"));
+        Set<Long> confirmedIds = new HashSet<>(confirmed.getUpdatedIds());
+        for (Long id : ids) {
+            assertEquals(confirmedIds.contains(id) ? 2 : 1, statusVersion(id));
+        }
+        assertEquals(confirmed.getUpdated() + cancelled.getUpdated(), events.size());
+    }
+
+    private OrderStatusService service(OrderStatusRepository repository, int maxReportedIds) {
+        return new OrderStatusServiceImpl(repository, transactionTemplate, event -> events.add((OrderChangedEvent) event),
+                2, maxReportedIds);
+    }
+
+    private static BulkStatusRequest byIds(Long... ids) {
+        BulkStatusRequest request = new BulkStatusRequest();
+        request.setIds(List.of(ids));
+        return request;
+    }
+
+    private long insertOrder(String userId, OrderStatus status, LocalDateTime orderDate) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbc.update("INSERT INTO orders (order_date, status, total_amount, user_id) VALUES (:date, :status, 10, :userId)",
+                new MapSqlParameterSource("date", orderDate).addValue("status", status.name()).addValue("userId", userId),
+                keys, new String[] {"id"});
+        return keys.getKey().longValue();
+    }
+
+    private String status(long id) {
+        return jdbc.queryForObject("SELECT status FROM orders WHERE id = :id", new MapSqlParameterSource("id", id), String.class);
+    }
+
+    private int statusVersion(long id) {
+        return jdbc.queryForObject("SELECT status_version FROM orders WHERE id = :id",
+                new MapSqlParameterSource("id", id), Integer.class);
+    }
+
+    private long count(String sql) {
+        return jdbc.getJdbcTemplate().queryForObject(sql, Long.class);
+    }
+}
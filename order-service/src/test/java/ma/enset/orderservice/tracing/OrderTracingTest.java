@@ -0,0 +1,151 @@
+package ma.enset.orderservice.tracing;
+
+import com.sun.net.httpserver.HttpServer;
+import ma.enset.commons.tracing.LocalSpanExporter;
+import ma.enset.commons.tracing.TraceViewerEndpoint;
+import ma.enset.orderservice.repository.OrderRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * A traced {@code POST /orders}: the trace context received from the gateway is continued by the
+ * server span, the Feign call carries it to product-service (a local HTTP server here), and the
+ * statements show up as JDBC spans of the same trace in the local exporter.
+ */
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "config.watch.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:order-tracing;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "management.tracing.sampling.probability=1.0",
+        "management.endpoints.web.exposure.include=traces"
+})
+@AutoConfigureMockMvc
+@AutoConfigureObservability(metrics = false)
+class OrderTracingTest {
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+    private static final Queue<String> PRODUCT_SERVICE_TRACEPARENTS = new ConcurrentLinkedQueue<>();
+    private static final HttpServer PRODUCT_SERVICE = productService();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private LocalSpanExporter exporter;
+
+    @Autowired
+    private TraceViewerEndpoint viewer;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @MockitoBean
+    private JwtDecoder jwtDecoder;
+
+    @DynamicPropertySource
+    static void productServiceInstance(DynamicPropertyRegistry registry) {
+        registry.add("spring.cloud.discovery.client.simple.instances.product-service[0].uri",
+                () -> "http://localhost:" + PRODUCT_SERVICE.getAddress().getPort());
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll();
+    }
+
+    @AfterAll
+    static void stopProductService() {
+        PRODUCT_SERVICE.stop(0);
+    }
+
+    @Test
+    void createOrderIsTracedAcrossFeignAndJdbc() throws Exception {
+        mockMvc.perform(post("/orders")
+                        .with(jwt().jwt(jwt -> jwt.subject("alice")).authorities(new SimpleGrantedAuthority("SCOPE_CLIENT")))
+                        .header("traceparent", "00-" + TRACE_ID + "-00f067aa0ba902b7-01")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"items\":[{\"productId\":1,\"quantity\":2},{\"productId\":2,\"quantity\":1}]}"))
+                .andExpect(status().isCreated());
+
+        // one Feign call per item, each carrying the trace
+        assertEquals(2, PRODUCT_SERVICE_TRACEPARENTS.size());
+        PRODUCT_SERVICE_TRACEPARENTS.forEach(traceparent -> assertTrue(traceparent.startsWith("00-" + TRACE_ID + "-")));
+
+        TraceViewerEndpoint.TraceView trace = viewer.trace(TRACE_ID);
+        assertNotNull(trace);
+        List<TraceViewerEndpoint.SpanView> spans = trace.spans();
+        TraceViewerEndpoint.SpanView server = spans.stream().filter(span -> "SERVER".equals(span.kind())).findFirst().orElseThrow();
+        assertEquals("00f067aa0ba902b7", server.parentId());
+        assertEquals(2, spans.stream().filter(span -> "CLIENT".equals(span.kind()) && span.depth() > server.depth()).count());
+        List<TraceViewerEndpoint.SpanView> jdbc = spans.stream().filter(span -> span.name().startsWith("jdbc ")).toList();
+        assertFalse(jdbc.isEmpty());
+        jdbc.forEach(span -> assertTrue(span.depth() > server.depth()));
+        assertTrue(jdbc.stream().anyMatch(span -> span.name().equals("jdbc insert")));
+        assertTrue(spans.stream().noneMatch(span -> span.name().startsWith("security")));
+
+        assertTrue(viewer.traces().stream().anyMatch(summary -> summary.traceId().equals(TRACE_ID)));
+        assertTrue(exporter.spans().size() >= spans.size());
+    }
+
+    @Test
+    void traceViewerIsForAdminsOnly() throws Exception {
+        mockMvc.perform(get("/actuator/traces")
+                        .with(jwt().authorities(new SimpleGrantedAuthority("SCOPE_CLIENT"))))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(get("/actuator/traces")
+                        .with(jwt().authorities(new SimpleGrantedAuthority("SCOPE_ADMIN"))))
+                .andExpect(status().isOk());
+    }
+
+    private static HttpServer productService() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/products/", exchange -> {
+                PRODUCT_SERVICE_TRACEPARENTS.add(exchange.getRequestHeaders().getFirst("traceparent"));
+                String id = exchange.getRequestURI().getPath().substring("/products/".length());
+                byte[] body = ("{\"id\":" + id + ",\"name\":\"Product " + id + "\",\"price\":5.0,\"quantity\":100}")
+                        .getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+                exchange.close();
+            });
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package ma.enset.productservice.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.time.Duration;
+
+/**
+ * R2DBC access for the reactive read path.
+ * <p>
+ * The connection pool is kept out of the context on purpose: Spring Boot skips its JDBC
+ * {@code DataSource} as soon as an R2DBC {@code ConnectionFactory} bean exists, and JPA
+ * (writes, Spring Data REST) still needs it. Only the {@link DatabaseClient} is exposed.
+ */
+@Configuration
+@ConditionalOnProperty(name = "product.reactive-reads.enabled", havingValue = "true")
+public class ReactiveReadConfig implements DisposableBean {
+
+    private final ConnectionPool connectionPool;
+
+    public ReactiveReadConfig(@Value("${spring.r2dbc.url}") String url,
+                              @Value("${spring.r2dbc.username:}") String username,
+                              @Value("${spring.r2dbc.password:}") String password,
+                              @Value("${product.reactive-reads.pool.initial-size:4}") int initialSize,
+                              @Value("${product.reactive-reads.pool.max-size:20}") int maxSize) {
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(url).mutate();
+        if (!username.isEmpty()) {
+            options.option(ConnectionFactoryOptions.USER, username);
+        }
+        if (!password.isEmpty()) {
+            options.option(ConnectionFactoryOptions.PASSWORD, password);
+        }
+        this.connectionPool = new ConnectionPool(ConnectionPoolConfiguration
+                .builder(ConnectionFactories.get(options.build()))
+                .name("product-reactive-reads")
+                .initialSize(initialSize)
+                .maxSize(maxSize)
+                .maxIdleTime(Duration.ofMinutes(30))
+                .build());
+    }
+
+    @Bean
+    public DatabaseClient reactiveReadDatabaseClient() {
+        return DatabaseClient.create(connectionPool);
+    }
+
+    @Override
+    public void destroy() {
+        connectionPool.dispose();
+    }
+}
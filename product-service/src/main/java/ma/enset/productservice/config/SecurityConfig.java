@@ -1,5 +1,7 @@
 package ma.enset.productservice.config;
 
+import ma.enset.commons.tracing.TraceViewerEndpoint;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.convert.converter.Converter;
@@ -30,6 +32,8 @@ public class SecurityConfig {
         http
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
+                        // the traces carry the SQL statements of the requests
+                        .requestMatchers(EndpointRequest.to(TraceViewerEndpoint.class)).hasAuthority("SCOPE_ADMIN")
                         .anyRequest().authenticated()   // ZERO TRUST : tout est protégé
                 )
                 .oauth2ResourceServer(oauth2 ->
@@ -2,6 +2,7 @@ package ma.enset.productservice.controller;
 
 import lombok.RequiredArgsConstructor;
 import ma.enset.productservice.dtos.ProductDto;
+import ma.enset.productservice.dtos.StockReservationRequest;
 import ma.enset.productservice.service.ProductService;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -47,4 +48,26 @@ public class ProductController {
     public void deleteProduct(@PathVariable Long id) {
         productService.delete(id);
     }
+
+    @PostMapping("/{id}/reservations")
+    @PreAuthorize("hasAnyAuthority('SCOPE_ADMIN','SCOPE_CLIENT')")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void reserveStock(@PathVariable Long id, @RequestBody StockReservationRequest request) {
+        productService.reserve(id, request.getQuantity());
+    }
+
+    // flash sales: stock held in memory by this instance, see HotStockService
+    @PutMapping("/{id}/hot-stock")
+    @PreAuthorize("hasAuthority('SCOPE_ADMIN')")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void enableHotStock(@PathVariable Long id) {
+        productService.enableHotStock(id);
+    }
+
+    @DeleteMapping("/{id}/hot-stock")
+    @PreAuthorize("hasAuthority('SCOPE_ADMIN')")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void disableHotStock(@PathVariable Long id) {
+        productService.disableHotStock(id);
+    }
 }
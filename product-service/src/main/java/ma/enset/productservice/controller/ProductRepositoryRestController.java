@@ -0,0 +1,43 @@
+package ma.enset.productservice.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import ma.enset.productservice.dtos.ProductDto;
+import ma.enset.productservice.service.ProductService;
+import org.springframework.data.rest.webmvc.RepositoryRestController;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+import java.io.IOException;
+
+/**
+ * Product updates on the Spring Data REST path ({@code /api/products/{id}}), used by the frontend.
+ * Entity saves leave the quantity out (see {@code Product}), so these go through
+ * {@link ProductService#update} instead, which sets it with its own guarded statement.
+ */
+@RepositoryRestController
+@RequiredArgsConstructor
+public class ProductRepositoryRestController {
+
+    private final ProductService productService;
+    private final ObjectMapper objectMapper;
+
+    @PutMapping("/products/{id}")
+    @PreAuthorize("hasAuthority('SCOPE_ADMIN')")
+    public ResponseEntity<ProductDto> updateProduct(@PathVariable Long id, @RequestBody ProductDto product) {
+        return ResponseEntity.ok(productService.update(id, product));
+    }
+
+    @PatchMapping("/products/{id}")
+    @PreAuthorize("hasAuthority('SCOPE_ADMIN')")
+    public ResponseEntity<ProductDto> patchProduct(@PathVariable Long id, @RequestBody JsonNode changes) throws IOException {
+        ProductDto product = objectMapper.readerForUpdating(productService.findById(id)).readValue(changes);
+        product.setId(id);
+        return ResponseEntity.ok(productService.update(id, product));
+    }
+}
@@ -0,0 +1,43 @@
+package ma.enset.productservice.controller;
+
+import lombok.RequiredArgsConstructor;
+import ma.enset.productservice.dtos.ProductDto;
+import ma.enset.productservice.service.ReactiveProductService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking catalog reads: the request thread is released while R2DBC runs the query
+ * (Spring MVC async handling of Mono/Flux), so slow reads no longer hold Tomcat threads.
+ */
+@RestController
+@RequestMapping("/reactive/products")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "product.reactive-reads.enabled", havingValue = "true")
+public class ReactiveProductController {
+
+    private final ReactiveProductService reactiveProductService;
+
+    @GetMapping
+    @PreAuthorize("hasAnyAuthority('SCOPE_ADMIN','SCOPE_CLIENT')")
+    public Flux<ProductDto> getProducts() {
+        return reactiveProductService.findAll();
+    }
+
+    // full catalog as newline-delimited JSON, written as rows arrive and requested one by one
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasAnyAuthority('SCOPE_ADMIN','SCOPE_CLIENT')")
+    public Flux<ProductDto> streamProducts() {
+        return reactiveProductService.findAll();
+    }
+
+    @GetMapping("/{id}")
+    @PreAuthorize("hasAnyAuthority('SCOPE_ADMIN','SCOPE_CLIENT')")
+    public Mono<ProductDto> getProduct(@PathVariable Long id) {
+        return reactiveProductService.findById(id);
+    }
+}
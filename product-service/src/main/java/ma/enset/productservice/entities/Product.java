@@ -1,5 +1,7 @@
 package ma.enset.productservice.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -20,5 +22,16 @@ public class Product {
     private String name;
     private String description;
     private double price;
+    // changed by StockRepository only: saving a product read earlier would overwrite concurrent reservations
+    @Column(updatable = false)
     private int quantity;
+
+    // hot-stock mode (see HotStockService): instance holding the stock in memory (null in the normal
+    // mode), and last journal entry applied to quantity; both maintained by StockRepository
+    @JsonIgnore
+    @Column(insertable = false, updatable = false)
+    private String hotStockOwner;
+    @JsonIgnore
+    @Column(insertable = false, updatable = false)
+    private Long hotStockAppliedSeq;
 }
@@ -0,0 +1,26 @@
+package ma.enset.productservice.hotstock;
+
+import ma.enset.productservice.entities.Product;
+import org.springframework.data.rest.core.annotation.HandleBeforeDelete;
+import org.springframework.data.rest.core.annotation.HandleBeforeSave;
+import org.springframework.data.rest.core.annotation.RepositoryEventHandler;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Keeps Spring Data REST ({@code /api/products}) from editing or deleting a product whose stock is held
+ * in memory. Entity saves never write the quantity itself (see {@code Product}).
+ */
+@Component
+@RepositoryEventHandler
+public class HotStockRepositoryEventHandler {
+
+    @HandleBeforeSave
+    @HandleBeforeDelete
+    public void rejectWhileHot(Product product) {
+        if (product.getHotStockOwner() != null) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Product is in hot-stock mode");
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package ma.enset.productservice.hotstock;
+
+import lombok.extern.slf4j.Slf4j;
+import ma.enset.productservice.repository.StockRepository;
+import ma.enset.productservice.repository.StockRepository.AppliedReservations;
+import ma.enset.productservice.repository.StockRepository.StockRow;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Flash-sale ("hot stock") mode: the stock of selected products is held in memory by this instance.
+ * <p>
+ * Reservations decrement a {@link StripedStockCounter} instead of the product row, and are written
+ * to the {@link StockJournal} before being acknowledged. A periodic write-behind flush subtracts the
+ * journaled reservations from {@code product.quantity} in one transaction, together with the sequence
+ * number of the last entry applied. On startup, the entries after that number are replayed, so a
+ * crash loses at most unacknowledged reservations and never gives back sold units.
+ * <p>
+ * A product in hot-stock mode is owned by one instance ({@code product.hot-stock.instance-id}); the
+ * others, and the normal reservation path, refuse it rather than risk overselling. The instance id has
+ * no default: it must be the same across restarts for an instance to find its products and replay its
+ * journal, and different for every instance.
+ */
+@Slf4j
+@Component
+// reconciliation runs in the constructor and needs the hot-stock columns created by Hibernate
+@DependsOn("entityManagerFactory")
+public class HotStockService implements DisposableBean {
+
+    public enum Reservation { RESERVED, INSUFFICIENT_STOCK, NOT_HOT }
+
+    private final StockRepository stockRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final String instanceId;
+    private final int stripes;
+    private final Duration journalTimeout;
+    private final StockJournal journal;
+    private final Map<Long, HotProduct> products = new ConcurrentHashMap<>();
+    // durable entries drained from the journal whose flush failed, retried first
+    private final List<StockJournal.Entry> unapplied = new ArrayList<>();
+
+    public HotStockService(StockRepository stockRepository,
+                           TransactionTemplate transactionTemplate,
+                           @Value("${product.hot-stock.instance-id}") String instanceId,
+                           @Value("${product.hot-stock.journal:${java.io.tmpdir}/product-service/hot-stock.journal}") Path journalFile,
+                           @Value("${product.hot-stock.journal-truncate-after:16MB}") DataSize truncateAfter,
+                           @Value("${product.hot-stock.journal-timeout:5s}") Duration journalTimeout,
+                           @Value("${product.hot-stock.stripes:0}") int stripes) {
+        if (instanceId.isBlank()) {
+            throw new IllegalStateException("product.hot-stock.instance-id must be set");
+        }
+        this.stockRepository = stockRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.instanceId = instanceId;
+        this.journalTimeout = journalTimeout;
+        this.stripes = stripes > 0 ? stripes : Runtime.getRuntime().availableProcessors();
+        long lastSeq = reconcile(journalFile);
+        this.journal = new StockJournal(journalFile, lastSeq, truncateAfter.toBytes());
+        for (StockRow row : stockRepository.findHot(instanceId)) {
+            products.put(row.id(), new HotProduct(new StripedStockCounter(row.quantity(), this.stripes)));
+        }
+        if (!products.isEmpty()) {
+            log.info("Hot-stock mode restored for products {}", products.keySet());
+        }
+    }
+
+    public Reservation reserve(long productId, int quantity) {
+        HotProduct product = products.get(productId);
+        if (product == null) {
+            return Reservation.NOT_HOT;
+        }
+        product.inFlight.incrementAndGet();
+        try {
+            if (product.closed) {
+                return Reservation.NOT_HOT;
+            }
+            if (!product.counter.tryReserve(quantity)) {
+                return Reservation.INSUFFICIENT_STOCK;
+            }
+            awaitDurable(journal.append(productId, quantity).orTimeout(journalTimeout.toMillis(), TimeUnit.MILLISECONDS));
+            return Reservation.RESERVED;
+        } finally {
+            product.leave();
+        }
+    }
+
+    /**
+     * Units available in memory, or -1 when the product is not in hot-stock mode on this instance.
+     */
+    public long available(long productId) {
+        HotProduct product = products.get(productId);
+        return product != null ? product.counter.available() : -1;
+    }
+
+    public boolean isHot(long productId) {
+        return products.containsKey(productId);
+    }
+
+    public void enable(long productId) {
+        if (products.containsKey(productId)) {
+            return;
+        }
+        synchronized (this) {
+            if (products.containsKey(productId)) {
+                return;
+            }
+            // the counter starts from the row: reservations of an earlier hot period must be in it
+            flush();
+            if (hasUnapplied(productId)) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                        "Earlier reservations of the product are not applied yet, retry later");
+            }
+            StockRow row = transactionTemplate.execute(status -> {
+                StockRow locked = stockRepository.lock(productId)
+                        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found"));
+                if (locked.hotStockOwner() != null && !locked.hotStockOwner().equals(instanceId)) {
+                    throw new ResponseStatusException(HttpStatus.CONFLICT,
+                            "Product is in hot-stock mode on " + locked.hotStockOwner());
+                }
+                // the applied seq is left as is: only the flush moves it, past entries it has applied
+                stockRepository.setHotStockOwner(productId, instanceId);
+                return locked;
+            });
+            products.put(productId, new HotProduct(new StripedStockCounter(row.quantity(), stripes)));
+            log.info("Hot-stock mode enabled for product {} with {} units", productId, row.quantity());
+        }
+    }
+
+    public void disable(long productId) {
+        HotProduct product = products.get(productId);
+        if (product == null) {
+            return;
+        }
+        product.closed = true;
+        // waited for outside of the monitor: the flush keeps running meanwhile
+        if (!product.awaitIdle()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while disabling hot-stock mode");
+        }
+        synchronized (this) {
+            if (products.get(productId) != product) {
+                return;
+            }
+            flush();
+            if (hasUnapplied(productId)) {
+                // the normal path would sell units the row does not know are gone
+                product.closed = false;
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                        "Reservations of the product could not be applied, retry later");
+            }
+            transactionTemplate.executeWithoutResult(status -> stockRepository.setHotStockOwner(productId, null));
+            products.remove(productId);
+            log.info("Hot-stock mode disabled for product {}", productId);
+        }
+    }
+
+    /**
+     * Write-behind: applies the durable journal entries to the product rows.
+     */
+    @Scheduled(fixedDelayString = "${product.hot-stock.flush-interval:200ms}")
+    public synchronized void flush() {
+        unapplied.addAll(journal.drainDurable());
+        if (unapplied.isEmpty()) {
+            return;
+        }
+        Map<Long, AppliedReservations> reservations = summarize(unapplied);
+        try {
+            transactionTemplate.executeWithoutResult(status -> stockRepository.applyReservations(reservations));
+        } catch (RuntimeException e) {
+            log.warn("Hot-stock flush of {} reservations failed, retrying later: {}", unapplied.size(), e.getMessage());
+            return;
+        }
+        journal.markApplied(unapplied.getLast().seq());
+        unapplied.clear();
+    }
+
+    @Override
+    public void destroy() {
+        products.values().forEach(product -> product.closed = true);
+        for (HotProduct product : products.values()) {
+            if (!product.awaitIdle()) {
+                // journaled reservations are replayed at the next start anyway
+                break;
+            }
+        }
+        journal.close();
+        flush();
+    }
+
+    private boolean hasUnapplied(long productId) {
+        return unapplied.stream().anyMatch(entry -> entry.productId() == productId);
+    }
+
+    /**
+     * Applies the journal entries of the previous run that the database has not seen, and returns the
+     * sequence number the journal continues from. Fails when entries cannot be applied, rather than
+     * let the journal, which is emptied next, lose them.
+     */
+    private long reconcile(Path journalFile) {
+        List<StockJournal.Entry> entries = StockJournal.read(journalFile);
+        // sequence numbers keep increasing past every applied one, including those of disabled products
+        long lastSeq = stockRepository.maxAppliedSeq();
+        Map<Long, StockRow> rows = new HashMap<>();
+        for (StockRow row : stockRepository.find(entries.stream().map(StockJournal.Entry::productId).distinct().toList())) {
+            rows.put(row.id(), row);
+        }
+        List<StockJournal.Entry> missing = new ArrayList<>();
+        Set<Long> ownedElsewhere = new TreeSet<>();
+        for (StockJournal.Entry entry : entries) {
+            lastSeq = Math.max(lastSeq, entry.seq());
+            StockRow row = rows.get(entry.productId());
+            if (row == null || (row.hotStockAppliedSeq() != null && entry.seq() <= row.hotStockAppliedSeq())) {
+                continue;
+            }
+            if (row.hotStockOwner() != null && !row.hotStockOwner().equals(instanceId)) {
+                ownedElsewhere.add(row.id());
+            } else {
+                // hot here, or disabled after a reservation whose write outlived its timeout: the units were taken
+                missing.add(entry);
+            }
+        }
+        if (!ownedElsewhere.isEmpty()) {
+            throw new IllegalStateException("Stock journal " + journalFile + " has reservations not applied to products "
+                    + ownedElsewhere + ", in hot-stock mode on another instance: was product.hot-stock.instance-id changed?");
+        }
+        if (!missing.isEmpty()) {
+            Map<Long, AppliedReservations> reservations = summarize(missing);
+            transactionTemplate.executeWithoutResult(status -> stockRepository.applyReservations(reservations));
+            log.info("Hot-stock journal replayed: {} reservations applied to products {}", missing.size(),
+                    reservations.keySet());
+        }
+        return lastSeq;
+    }
+
+    private static Map<Long, AppliedReservations> summarize(List<StockJournal.Entry> entries) {
+        Map<Long, AppliedReservations> reservations = new LinkedHashMap<>();
+        for (StockJournal.Entry entry : entries) {
+            reservations.merge(entry.productId(), new AppliedReservations(entry.quantity(), entry.seq()),
+                    (a, b) -> new AppliedReservations(a.quantity() + b.quantity(), Math.max(a.lastSeq(), b.lastSeq())));
+        }
+        return reservations;
+    }
+
+    private static void awaitDurable(CompletableFuture<StockJournal.Entry> append) {
+        try {
+            append.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Reservation interrupted");
+        } catch (ExecutionException e) {
+            // the units stay taken: the entry may still reach the disk, and giving them back could oversell
+            String reason = e.getCause() instanceof TimeoutException ? "timed out" : "failed";
+            log.error("Hot-stock reservation journal write {}", reason, e.getCause());
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Reservation could not be recorded");
+        }
+    }
+
+    private static final class HotProduct {
+        private final StripedStockCounter counter;
+        // an exact count rather than a LongAdder, whose sum may miss concurrent updates: disable waits for zero
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile boolean closed;
+
+        private HotProduct(StripedStockCounter counter) {
+            this.counter = counter;
+        }
+
+        private void leave() {
+            if (inFlight.decrementAndGet() == 0 && closed) {
+                synchronized (this) {
+                    notifyAll();
+                }
+            }
+        }
+
+        /**
+         * Waits until the reservations started before {@link #closed} was set are done; false if interrupted.
+         */
+        private boolean awaitIdle() {
+            synchronized (this) {
+                while (inFlight.get() > 0) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package ma.enset.productservice.hotstock;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Append-only journal of the hot-stock reservations, written ahead of the database.
+ * <p>
+ * Appends are grouped: a single writer thread takes everything queued since its last write, writes it
+ * and forces it to disk once, then completes the futures of the whole group. A reservation is only
+ * acknowledged once its entry is durable, so the reservations lost in a crash are the unacknowledged
+ * ones. Durable entries are then handed to the write-behind flush through {@link #drainDurable()}.
+ * <p>
+ * One entry per line: {@code seq,productId,quantity}. Sequence numbers increase across restarts.
+ */
+@Slf4j
+public class StockJournal implements AutoCloseable {
+
+    private static final int MAX_GROUP = 4096;
+    // stops the writer; interrupting it instead could close the channel in the middle of a write
+    private static final PendingAppend CLOSE = new PendingAppend(-1, 0, null);
+
+    private final Path file;
+    private final FileChannel channel;
+    private final BlockingQueue<PendingAppend> queue = new LinkedBlockingQueue<>();
+    private final ConcurrentLinkedQueue<Entry> durable = new ConcurrentLinkedQueue<>();
+    private final long truncateAfterBytes;
+    private final Thread writer;
+    private volatile long lastSeq;
+    private volatile long appliedSeq;
+    private volatile boolean closed;
+
+    /**
+     * Opens the journal, emptied: entries of a previous run must have been replayed before, as
+     * {@link HotStockService} does on startup, failing it when some cannot be.
+     */
+    public StockJournal(Path file, long lastSeq, long truncateAfterBytes) {
+        this.file = file;
+        this.lastSeq = lastSeq;
+        this.appliedSeq = lastSeq;
+        this.truncateAfterBytes = truncateAfterBytes;
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            channel.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open stock journal " + file, e);
+        }
+        this.writer = Thread.ofPlatform().daemon().name("stock-journal-writer").start(this::writeLoop);
+    }
+
+    /**
+     * Entries of the journal file, in order; a last line cut short by a crash is ignored.
+     */
+    public static List<Entry> read(Path file) {
+        List<Entry> entries = new ArrayList<>();
+        if (!Files.exists(file)) {
+            return entries;
+        }
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                String[] fields = line.split(",");
+                if (fields.length == 3) {
+                    try {
+                        entries.add(new Entry(Long.parseLong(fields[0]), Long.parseLong(fields[1]),
+                                Integer.parseInt(fields[2])));
+                    } catch (NumberFormatException e) {
+                        log.warn("Ignoring malformed stock journal line: {}", line);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read stock journal " + file, e);
+        }
+        return entries;
+    }
+
+    /**
+     * Completes once the entry is on disk, exceptionally if it could not be written.
+     */
+    public CompletableFuture<Entry> append(long productId, int quantity) {
+        CompletableFuture<Entry> future = new CompletableFuture<>();
+        if (closed) {
+            future.completeExceptionally(new IllegalStateException("Stock journal is closed"));
+        } else {
+            queue.add(new PendingAppend(productId, quantity, future));
+        }
+        return future;
+    }
+
+    /**
+     * Removes and returns the durable entries not drained yet, in sequence order.
+     */
+    public List<Entry> drainDurable() {
+        List<Entry> entries = new ArrayList<>();
+        Entry entry;
+        while ((entry = durable.poll()) != null) {
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    /**
+     * Records that every entry up to {@code seq} is applied to the database, so that the file can be emptied.
+     */
+    public void markApplied(long seq) {
+        appliedSeq = Math.max(appliedSeq, seq);
+    }
+
+    public long lastSeq() {
+        return lastSeq;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        queue.add(CLOSE);
+        try {
+            writer.join(5000);
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.warn("Cannot close stock journal {}: {}", file, e.getMessage());
+        }
+    }
+
+    private void writeLoop() {
+        List<PendingAppend> group = new ArrayList<>();
+        boolean running = true;
+        while (running) {
+            try {
+                group.add(queue.take());
+            } catch (InterruptedException e) {
+                continue;
+            }
+            queue.drainTo(group, MAX_GROUP - group.size());
+            // appends are refused once closed, so CLOSE is the last element queued
+            running = !group.remove(CLOSE);
+            if (!group.isEmpty()) {
+                write(group);
+            }
+            group.clear();
+        }
+        PendingAppend late;
+        while ((late = queue.poll()) != null) {
+            late.future().completeExceptionally(new IllegalStateException("Stock journal is closed"));
+        }
+    }
+
+    private void write(List<PendingAppend> group) {
+        List<Entry> entries = new ArrayList<>(group.size());
+        StringBuilder lines = new StringBuilder(group.size() * 24);
+        long seq = lastSeq;
+        for (PendingAppend pending : group) {
+            Entry entry = new Entry(++seq, pending.productId(), pending.quantity());
+            entries.add(entry);
+            lines.append(entry.seq()).append(',').append(entry.productId()).append(',').append(entry.quantity()).append('\n');
+        }
+        try {
+            // everything written so far is applied: start over instead of growing forever
+            if (appliedSeq == lastSeq && channel.size() > truncateAfterBytes) {
+                channel.truncate(0);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            channel.position(channel.size());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            // the entries may or may not be on disk: they are not applied now, and replayed at the next start
+            // if they are; either way the units stay taken from the in-memory stock
+            log.error("Cannot write {} entries to stock journal {}", group.size(), file, e);
+            lastSeq = seq;
+            group.forEach(pending -> pending.future().completeExceptionally(e));
+            return;
+        }
+        lastSeq = seq;
+        durable.addAll(entries);
+        for (int i = 0; i < group.size(); i++) {
+            group.get(i).future().complete(entries.get(i));
+        }
+    }
+
+    public record Entry(long seq, long productId, int quantity) {
+    }
+
+    private record PendingAppend(long productId, int quantity, CompletableFuture<Entry> future) {
+    }
+}
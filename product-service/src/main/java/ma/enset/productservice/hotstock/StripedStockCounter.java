@@ -0,0 +1,116 @@
+package ma.enset.productservice.hotstock;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Stock of one product split over several independent counters ("stripes"), so that concurrent
+ * reservations mostly hit different cache lines instead of contending on a single value.
+ * <p>
+ * A reservation first tries the caller's home stripe, then the others, each with a compare-and-set
+ * that never takes a stripe below zero: the units reserved can never exceed the units loaded.
+ * When no single stripe holds enough, units are gathered from several stripes and given back if
+ * the total is still short.
+ */
+public class StripedStockCounter {
+
+    // one stripe per 64-byte cache line
+    private static final int PADDING = 8;
+    private static final int GATHER_ATTEMPTS = 3;
+
+    private final int stripes;
+    private final AtomicLongArray cells;
+
+    public StripedStockCounter(long stock, int stripes) {
+        if (stock < 0 || stripes < 1) {
+            throw new IllegalArgumentException("stock must be >= 0 and stripes >= 1");
+        }
+        this.stripes = stripes;
+        this.cells = new AtomicLongArray(stripes * PADDING);
+        for (int i = 0; i < stripes; i++) {
+            cells.set(i * PADDING, stock / stripes + (i < stock % stripes ? 1 : 0));
+        }
+    }
+
+    /**
+     * Takes {@code quantity} units, or nothing and returns false when fewer are available.
+     */
+    public boolean tryReserve(int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("quantity must be positive");
+        }
+        int home = homeStripe();
+        for (int i = 0; i < stripes; i++) {
+            if (tryTake((home + i) % stripes, quantity)) {
+                return true;
+            }
+        }
+        for (int attempt = 0; attempt < GATHER_ATTEMPTS && available() >= quantity; attempt++) {
+            if (gather(home, quantity)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void release(int quantity) {
+        cells.addAndGet(homeStripe() * PADDING, quantity);
+    }
+
+    /**
+     * Units left; exact only when no reservation is in progress.
+     */
+    public long available() {
+        long total = 0;
+        for (int i = 0; i < stripes; i++) {
+            total += cells.get(i * PADDING);
+        }
+        return total;
+    }
+
+    private boolean tryTake(int stripe, int quantity) {
+        int index = stripe * PADDING;
+        long current = cells.get(index);
+        while (current >= quantity) {
+            long witness = cells.compareAndExchange(index, current, current - quantity);
+            if (witness == current) {
+                return true;
+            }
+            current = witness;
+        }
+        return false;
+    }
+
+    private boolean gather(int home, int quantity) {
+        long[] taken = new long[stripes];
+        long missing = quantity;
+        for (int i = 0; i < stripes && missing > 0; i++) {
+            int stripe = (home + i) % stripes;
+            int index = stripe * PADDING;
+            long current = cells.get(index);
+            while (current > 0 && missing > 0) {
+                long take = Math.min(current, missing);
+                long witness = cells.compareAndExchange(index, current, current - take);
+                if (witness == current) {
+                    taken[stripe] += take;
+                    missing -= take;
+                    break;
+                }
+                current = witness;
+            }
+        }
+        if (missing == 0) {
+            return true;
+        }
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            if (taken[stripe] > 0) {
+                cells.addAndGet(stripe * PADDING, taken[stripe]);
+            }
+        }
+        return false;
+    }
+
+    private int homeStripe() {
+        long id = Thread.currentThread().threadId();
+        return (int) Math.floorMod(id * 0x9E3779B97F4A7C15L >>> 32, stripes);
+    }
+}
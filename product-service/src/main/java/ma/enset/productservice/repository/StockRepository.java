@@ -0,0 +1,105 @@
+package ma.enset.productservice.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Stock updates done with plain SQL, outside of JPA: conditional decrements in the normal mode and
+ * the bookkeeping of the hot-stock mode. Callers provide the transaction where one is needed.
+ */
+@Repository
+public class StockRepository {
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public StockRepository(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Takes {@code quantity} units in a single statement, guarded by the row lock: returns false when the
+     * product does not exist, has not enough stock, or is in hot-stock mode.
+     */
+    public boolean decrement(long productId, int quantity) {
+        return jdbc.update("UPDATE product SET quantity = quantity - :quantity "
+                        + "WHERE id = :id AND quantity >= :quantity AND hot_stock_owner IS NULL",
+                new MapSqlParameterSource("id", productId).addValue("quantity", quantity)) == 1;
+    }
+
+    /**
+     * Sets the stock outside of hot-stock mode; false when the product does not exist or is in hot-stock mode.
+     */
+    public boolean setQuantity(long productId, int quantity) {
+        return jdbc.update("UPDATE product SET quantity = :quantity WHERE id = :id AND hot_stock_owner IS NULL",
+                new MapSqlParameterSource("id", productId).addValue("quantity", quantity)) == 1;
+    }
+
+    public Optional<StockRow> lock(long productId) {
+        return jdbc.query("SELECT id, quantity, hot_stock_owner, hot_stock_applied_seq FROM product WHERE id = :id FOR UPDATE",
+                        new MapSqlParameterSource("id", productId), (rs, rowNum) -> new StockRow(rs.getLong("id"),
+                                rs.getLong("quantity"), rs.getString("hot_stock_owner"),
+                                rs.getObject("hot_stock_applied_seq", Long.class)))
+                .stream()
+                .findFirst();
+    }
+
+    public List<StockRow> findHot(String owner) {
+        return jdbc.query("SELECT id, quantity, hot_stock_owner, hot_stock_applied_seq FROM product "
+                        + "WHERE hot_stock_owner = :owner ORDER BY id",
+                new MapSqlParameterSource("owner", owner), (rs, rowNum) -> new StockRow(rs.getLong("id"),
+                        rs.getLong("quantity"), rs.getString("hot_stock_owner"),
+                        rs.getObject("hot_stock_applied_seq", Long.class)));
+    }
+
+    public List<StockRow> find(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbc.query("SELECT id, quantity, hot_stock_owner, hot_stock_applied_seq FROM product WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", productIds), (rs, rowNum) -> new StockRow(rs.getLong("id"),
+                        rs.getLong("quantity"), rs.getString("hot_stock_owner"),
+                        rs.getObject("hot_stock_applied_seq", Long.class)));
+    }
+
+    /**
+     * Highest journal entry applied to any product, 0 when none was.
+     */
+    public long maxAppliedSeq() {
+        Long seq = jdbc.getJdbcTemplate().queryForObject("SELECT MAX(hot_stock_applied_seq) FROM product", Long.class);
+        return seq != null ? seq : 0;
+    }
+
+    /**
+     * Sets or clears the hot-stock owner; the applied seq is kept, so that journal entries are never applied twice.
+     */
+    public void setHotStockOwner(long productId, String owner) {
+        jdbc.update("UPDATE product SET hot_stock_owner = :owner WHERE id = :id",
+                new MapSqlParameterSource("id", productId).addValue("owner", owner));
+    }
+
+    /**
+     * Applies journaled reservations: subtracts the reserved units and records the last journal entry applied,
+     * which makes replaying the journal idempotent.
+     */
+    public void applyReservations(Map<Long, AppliedReservations> reservations) {
+        MapSqlParameterSource[] batch = reservations.entrySet().stream()
+                .map(entry -> new MapSqlParameterSource("id", entry.getKey())
+                        .addValue("quantity", entry.getValue().quantity())
+                        .addValue("seq", entry.getValue().lastSeq()))
+                .toArray(MapSqlParameterSource[]::new);
+        jdbc.batchUpdate("UPDATE product SET quantity = quantity - :quantity, hot_stock_applied_seq = :seq "
+                + "WHERE id = :id AND (hot_stock_applied_seq IS NULL OR hot_stock_applied_seq < :seq)", batch);
+    }
+
+    public record StockRow(long id, long quantity, String hotStockOwner, Long hotStockAppliedSeq) {
+    }
+
+    public record AppliedReservations(long quantity, long lastSeq) {
+    }
+}
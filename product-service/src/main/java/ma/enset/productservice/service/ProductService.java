@@ -10,4 +10,7 @@ public interface ProductService {
     ProductDto create(ProductDto product);
     ProductDto update(Long id, ProductDto product);
     void delete(Long id);
+    void reserve(Long id, int quantity);
+    void enableHotStock(Long id);
+    void disableHotStock(Long id);
 }
@@ -3,10 +3,13 @@ package ma.enset.productservice.service;
 import lombok.RequiredArgsConstructor;
 import ma.enset.productservice.dtos.ProductDto;
 import ma.enset.productservice.entities.Product;
+import ma.enset.productservice.hotstock.HotStockService;
 import ma.enset.productservice.mappers.ProductMapper;
 import ma.enset.productservice.repository.ProductRepository;
+import ma.enset.productservice.repository.StockRepository;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
@@ -17,6 +20,8 @@ public class ProductServiceImpl implements ProductService {
 
     private final ProductRepository productRepository;
     private final ProductMapper productMapper;
+    private final StockRepository stockRepository;
+    private final HotStockService hotStockService;
 
     @Override
     public List<ProductDto> findAll() {
@@ -41,12 +46,18 @@ public class ProductServiceImpl implements ProductService {
     }
 
     @Override
+    @Transactional
     public ProductDto update(Long id, ProductDto productDto) {
         Product existing = productRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found"));
+        boolean quantityChanged = existing.getQuantity() != productDto.getQuantity();
 
+        // the entity save leaves the quantity out (see Product): it is set in its own guarded statement
         productMapper.updateEntity(productDto, existing);
         Product saved = productRepository.save(existing);
+        if (quantityChanged && !stockRepository.setQuantity(id, productDto.getQuantity())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Disable hot-stock mode before changing the quantity");
+        }
         return productMapper.toDto(saved);
     }
 
@@ -55,6 +66,9 @@ public class ProductServiceImpl implements ProductService {
         if (!productRepository.existsById(id)) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found");
         }
+        if (hotStockService.isHot(id)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Disable hot-stock mode before deleting the product");
+        }
         try {
             productRepository.deleteById(id);
         } catch (Exception e) {
@@ -62,4 +76,35 @@ public class ProductServiceImpl implements ProductService {
                 "Cannot delete product. It may be referenced in existing orders.");
         }
     }
+
+    @Override
+    public void reserve(Long id, int quantity) {
+        if (quantity <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Quantity must be positive");
+        }
+        switch (hotStockService.reserve(id, quantity)) {
+            case RESERVED -> {
+            }
+            case INSUFFICIENT_STOCK -> throw new ResponseStatusException(HttpStatus.CONFLICT, "Insufficient stock");
+            case NOT_HOT -> {
+                if (!stockRepository.decrement(id, quantity)) {
+                    Product product = productRepository.findById(id)
+                            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found"));
+                    throw new ResponseStatusException(HttpStatus.CONFLICT, product.getHotStockOwner() != null
+                            ? "Product is in hot-stock mode on " + product.getHotStockOwner()
+                            : "Insufficient stock");
+                }
+            }
+        }
+    }
+
+    @Override
+    public void enableHotStock(Long id) {
+        hotStockService.enable(id);
+    }
+
+    @Override
+    public void disableHotStock(Long id) {
+        hotStockService.disable(id);
+    }
 }
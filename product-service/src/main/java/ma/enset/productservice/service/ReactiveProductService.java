@@ -0,0 +1,10 @@
+package ma.enset.productservice.service;
+
+import ma.enset.productservice.dtos.ProductDto;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveProductService {
+    Flux<ProductDto> findAll();
+    Mono<ProductDto> findById(Long id);
+}
@@ -0,0 +1,59 @@
+package ma.enset.productservice.service;
+
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import ma.enset.productservice.dtos.ProductDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Catalog reads over R2DBC, used by the reactive read path. Writes stay on {@link ProductServiceImpl} (JPA).
+ * <p>
+ * {@link #findAll()} reads with a bounded fetch size, so rows are pulled from the database cursor
+ * as the subscriber requests them instead of being buffered all at once.
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "product.reactive-reads.enabled", havingValue = "true")
+public class ReactiveProductServiceImpl implements ReactiveProductService {
+
+    private static final String SELECT_PRODUCT = "SELECT id, name, description, price, quantity FROM product";
+
+    private final DatabaseClient databaseClient;
+
+    @Value("${product.reactive-reads.fetch-size:256}")
+    private int fetchSize;
+
+    @Override
+    public Flux<ProductDto> findAll() {
+        return databaseClient.sql(SELECT_PRODUCT + " ORDER BY id")
+                .filter((statement, next) -> next.execute(statement.fetchSize(fetchSize)))
+                .map(this::toDto)
+                .all();
+    }
+
+    @Override
+    public Mono<ProductDto> findById(Long id) {
+        return databaseClient.sql(SELECT_PRODUCT + " WHERE id = :id")
+                .bind("id", id)
+                .map(this::toDto)
+                .one()
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found")));
+    }
+
+    private ProductDto toDto(Readable row) {
+        return ProductDto.builder()
+                .id(row.get("id", Long.class))
+                .name(row.get("name", String.class))
+                .description(row.get("description", String.class))
+                .price(row.get("price", Double.class))
+                .quantity(row.get("quantity", Integer.class))
+                .build();
+    }
+}
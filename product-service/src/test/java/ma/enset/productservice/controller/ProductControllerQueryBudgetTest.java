@@ -0,0 +1,99 @@
+package ma.enset.productservice.controller;
+
+import ma.enset.productservice.entities.Product;
+import ma.enset.commons.querycount.QueryScope;
+import ma.enset.productservice.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import static ma.enset.commons.querycount.QueryBudgetAssertions.assertMaxQueries;
+import static ma.enset.commons.querycount.QueryBudgetAssertions.assertQueryCount;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Query budgets of the {@link ProductController} endpoints, on an embedded H2 database.
+ */
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "config.watch.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:product-query-budget;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureMockMvc
+class ProductControllerQueryBudgetTest {
+
+    private static final RequestPostProcessor CLIENT = jwt().authorities(new SimpleGrantedAuthority("SCOPE_CLIENT"));
+    private static final RequestPostProcessor ADMIN = jwt().authorities(new SimpleGrantedAuthority("SCOPE_ADMIN"));
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @MockitoBean
+    private JwtDecoder jwtDecoder;
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void catalogIsReadWithOneQuery() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            saveProduct("Product " + i);
+        }
+
+        QueryScope scope = assertQueryCount(1, () -> mockMvc.perform(get("/products").with(CLIENT))
+                .andExpect(status().isOk()));
+
+        assertEquals(1, scope.getChildren().get("ProductServiceImpl.findAll").getCount());
+    }
+
+    @Test
+    void productByIdIsReadWithOneQuery() throws Exception {
+        Product product = saveProduct("Keyboard");
+
+        assertQueryCount(1, () -> mockMvc.perform(get("/products/{id}", product.getId()).with(CLIENT))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void updateReadsThenWritesTheProduct() throws Exception {
+        Product product = saveProduct("Keyboard");
+
+        // findById and save run in separate transactions, so save reloads the entity before the update
+        assertMaxQueries(3, () -> mockMvc.perform(put("/products/{id}", product.getId()).with(ADMIN)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Mechanical keyboard\",\"description\":\"\",\"price\":49.9,\"quantity\":5}"))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void deleteChecksThenDeletesTheProduct() throws Exception {
+        Product product = saveProduct("Keyboard");
+
+        assertMaxQueries(3, () -> mockMvc.perform(delete("/products/{id}", product.getId()).with(ADMIN))
+                .andExpect(status().isNoContent()));
+    }
+
+    private Product saveProduct(String name) {
+        return productRepository.save(Product.builder().name(name).description(name).price(19.9).quantity(10).build());
+    }
+}
@@ -0,0 +1,111 @@
+package ma.enset.productservice.controller;
+
+import ma.enset.productservice.entities.Product;
+import ma.enset.productservice.repository.ProductRepository;
+import ma.enset.productservice.repository.StockRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Product updates on the Spring Data REST path: the quantity is saved like the other fields instead
+ * of being dropped by the entity save.
+ */
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "config.watch.enabled=false",
+        "spring.data.rest.base-path=/api",
+        "spring.datasource.url=jdbc:h2:mem:product-rest-repository;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureMockMvc
+class ProductRepositoryRestControllerTest {
+
+    private static final RequestPostProcessor ADMIN = jwt().authorities(new SimpleGrantedAuthority("SCOPE_ADMIN"));
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @MockitoBean
+    private JwtDecoder jwtDecoder;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        product = productRepository.save(Product.builder()
+                .name("Keyboard")
+                .description("Mechanical keyboard")
+                .price(49.9)
+                .quantity(10)
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void putSavesTheQuantity() throws Exception {
+        mockMvc.perform(put("/api/products/{id}", product.getId()).with(ADMIN)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Keyboard\",\"description\":\"Mechanical keyboard\",\"price\":49.9,\"quantity\":25}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.quantity").value(25));
+
+        assertEquals(25, productRepository.findById(product.getId()).orElseThrow().getQuantity());
+    }
+
+    @Test
+    void patchKeepsTheFieldsItLeavesOut() throws Exception {
+        mockMvc.perform(patch("/api/products/{id}", product.getId()).with(ADMIN)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantity\":25}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(patch("/api/products/{id}", product.getId()).with(ADMIN)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\":39.9}"))
+                .andExpect(status().isOk());
+
+        Product saved = productRepository.findById(product.getId()).orElseThrow();
+        assertEquals("Keyboard", saved.getName());
+        assertEquals(39.9, saved.getPrice());
+        assertEquals(25, saved.getQuantity());
+    }
+
+    @Test
+    void quantityOfAHotProductIsRejected() throws Exception {
+        stockRepository.setHotStockOwner(product.getId(), "other-instance");
+
+        mockMvc.perform(patch("/api/products/{id}", product.getId()).with(ADMIN)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantity\":25}"))
+                .andExpect(status().isConflict());
+
+        assertEquals(10, productRepository.findById(product.getId()).orElseThrow().getQuantity());
+    }
+}
@@ -0,0 +1,119 @@
+package ma.enset.productservice.controller;
+
+import ma.enset.productservice.entities.Product;
+import ma.enset.productservice.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The reactive read path on an embedded H2 database, written through JPA and read back over R2DBC:
+ * the same rows as the servlet path, the NDJSON stream and the 404 of a missing product.
+ */
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "config.watch.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:product-reactive;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.r2dbc.url=r2dbc:h2:mem:///product-reactive;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.username=sa",
+        "product.reactive-reads.enabled=true",
+        "product.reactive-reads.fetch-size=2"
+})
+@AutoConfigureMockMvc
+class ReactiveProductControllerTest {
+
+    private static final RequestPostProcessor CLIENT = jwt().authorities(new SimpleGrantedAuthority("SCOPE_CLIENT"));
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @MockitoBean
+    private JwtDecoder jwtDecoder;
+
+    private List<Product> products;
+
+    @BeforeEach
+    void setUp() {
+        products = productRepository.saveAll(List.of(
+                Product.builder().name("Keyboard").description("Mechanical keyboard").price(49.9).quantity(10).build(),
+                Product.builder().name("Mouse").description("Wireless mouse").price(19.9).quantity(25).build(),
+                Product.builder().name("Screen").description("27 inch screen").price(199.0).quantity(3).build()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void catalogIsReadInIdOrder() throws Exception {
+        // fetch size 2: the three rows take more than one fetch from the cursor
+        mockMvc.perform(asyncDispatch(started(get("/reactive/products"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].id").value(products.get(0).getId()))
+                .andExpect(jsonPath("$[0].name").value("Keyboard"))
+                .andExpect(jsonPath("$[1].price").value(19.9))
+                .andExpect(jsonPath("$[2].quantity").value(3));
+    }
+
+    @Test
+    void catalogIsStreamedAsNdjson() throws Exception {
+        MvcResult result = mockMvc.perform(asyncDispatch(started(get("/reactive/products/stream")
+                        .accept(MediaType.APPLICATION_NDJSON))))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+
+        assertEquals(3, result.getResponse().getContentAsString().lines().count());
+    }
+
+    @Test
+    void productIsReadById() throws Exception {
+        Product mouse = products.get(1);
+        mockMvc.perform(asyncDispatch(started(get("/reactive/products/{id}", mouse.getId()))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Mouse"))
+                .andExpect(jsonPath("$.description").value("Wireless mouse"))
+                .andExpect(jsonPath("$.quantity").value(25));
+    }
+
+    @Test
+    void missingProductIsNotFound() throws Exception {
+        mockMvc.perform(asyncDispatch(started(get("/reactive/products/{id}", -1))))
+                .andExpect(status().isNotFound());
+    }
+
+    private MvcResult started(MockHttpServletRequestBuilder request) throws Exception {
+        return mockMvc.perform(request.with(CLIENT))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+}
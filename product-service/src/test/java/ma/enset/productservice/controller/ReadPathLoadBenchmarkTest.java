@@ -0,0 +1,106 @@
+package ma.enset.productservice.controller;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the servlet read path ({@code /products}) with the reactive one ({@code /reactive/products})
+ * at high concurrency, against a running product-service backed by PostgreSQL.
+ * <p>
+ * Opt-in, it needs the whole stack: run with
+ * {@code mvn test -Dtest=ReadPathLoadBenchmarkTest -Dbenchmark.baseUrl=http://localhost:8081 -Dbenchmark.token=<access token>}
+ * and optionally {@code -Dbenchmark.concurrency} and {@code -Dbenchmark.requests}.
+ * Throughput and latency percentiles are printed, not asserted: they depend on the machine.
+ */
+@EnabledIfSystemProperty(named = "benchmark.baseUrl", matches = ".+")
+class ReadPathLoadBenchmarkTest {
+
+    private final String baseUrl = System.getProperty("benchmark.baseUrl");
+    private final String token = System.getProperty("benchmark.token", "");
+    private final int concurrency = Integer.getInteger("benchmark.concurrency", 500);
+    private final int requests = Integer.getInteger("benchmark.requests", 20_000);
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @Test
+    void servletVersusReactiveCatalogReads() throws Exception {
+        run("servlet", "/products", requests / 10);
+        run("reactive", "/reactive/products", requests / 10);
+
+        report("servlet", run("servlet", "/products", requests));
+        report("reactive", run("reactive", "/reactive/products", requests));
+        report("ndjson", run("ndjson", "/reactive/products/stream", requests));
+    }
+
+    private Result run(String name, String path, int total) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+        AtomicInteger remaining = new AtomicInteger(total);
+        AtomicInteger errors = new AtomicInteger();
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>(total));
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                workers.add(executor.submit(() -> {
+                    while (remaining.getAndDecrement() > 0) {
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies.add(System.nanoTime() - sent);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        assertEquals(total, latencies.size(), name);
+        return new Result(total, errors.get(), elapsed, latencies);
+    }
+
+    private void report(String name, Result result) {
+        List<Long> sorted = new ArrayList<>(result.latencies());
+        Collections.sort(sorted);
+        System.out.printf("%-8s %6d req, %4d errors, %8.0f req/s, p50 %6.1f ms, p99 %7.1f ms, max %7.1f ms%n",
+                name, result.total(), result.errors(),
+                result.total() / (result.elapsedNanos() / 1e9),
+                percentile(sorted, 0.50), percentile(sorted, 0.99), sorted.getLast() / 1e6);
+    }
+
+    private static double percentile(List<Long> sorted, double p) {
+        return sorted.get((int) Math.min(sorted.size() - 1, Math.ceil(p * sorted.size()) - 1)) / 1e6;
+    }
+
+    private record Result(int total, int errors, long elapsedNanos, List<Long> latencies) {
+    }
+}
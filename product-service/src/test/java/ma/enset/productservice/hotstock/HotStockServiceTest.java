@@ -0,0 +1,209 @@
+package ma.enset.productservice.hotstock;
+
+import ma.enset.productservice.hotstock.HotStockService.Reservation;
+import ma.enset.productservice.repository.StockRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hot-stock reservations on an embedded H2 database: concurrent reservations with a concurrent
+ * write-behind flush, and recovery of the journal after a crash.
+ */
+class HotStockServiceTest {
+
+    private static final long PRODUCT = 1;
+    private static final int STOCK = 20_000;
+    private static final int THREADS = 32;
+
+    @TempDir
+    private Path dir;
+
+    private NamedParameterJdbcTemplate jdbc;
+    private StockRepository stockRepository;
+    private TransactionTemplate transactionTemplate;
+    private final List<HotStockService> services = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        SimpleDriverDataSource dataSource = new SimpleDriverDataSource(new org.h2.Driver(),
+                "jdbc:h2:mem:hot-stock;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbc = new NamedParameterJdbcTemplate(dataSource);
+        jdbc.getJdbcTemplate().execute("CREATE TABLE product (id BIGINT PRIMARY KEY, name VARCHAR(255), "
+                + "description VARCHAR(255), price DOUBLE PRECISION, quantity INTEGER NOT NULL, "
+                + "hot_stock_owner VARCHAR(255), hot_stock_applied_seq BIGINT)");
+        jdbc.update("INSERT INTO product (id, name, price, quantity) VALUES (:id, 'Console', 499, :stock)",
+                new MapSqlParameterSource("id", PRODUCT).addValue("stock", STOCK));
+        stockRepository = new StockRepository(jdbc);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @AfterEach
+    void tearDown() {
+        services.forEach(HotStockService::destroy);
+        jdbc.getJdbcTemplate().execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void concurrentReservationsNeverOversell() throws Exception {
+        HotStockService service = start();
+        service.enable(PRODUCT);
+
+        LongAdder sold = new LongAdder();
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1)) {
+            Future<?> flusher = executor.submit(() -> {
+                while (running.get()) {
+                    service.flush();
+                    Thread.sleep(5);
+                }
+                return null;
+            });
+            List<Future<?>> buyers = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                buyers.add(executor.submit(() -> {
+                    start.await();
+                    while (true) {
+                        int quantity = ThreadLocalRandom.current().nextInt(1, 4);
+                        Reservation reservation = service.reserve(PRODUCT, quantity);
+                        if (reservation == Reservation.RESERVED) {
+                            sold.add(quantity);
+                        } else if (service.available(PRODUCT) == 0) {
+                            return null;
+                        }
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<?> buyer : buyers) {
+                buyer.get();
+            }
+            running.set(false);
+            flusher.get();
+        }
+        service.flush();
+
+        assertEquals(STOCK, sold.sum());
+        assertEquals(0, service.available(PRODUCT));
+        assertEquals(0, quantity());
+        assertEquals(Reservation.INSUFFICIENT_STOCK, service.reserve(PRODUCT, 1));
+    }
+
+    @Test
+    void crashBeforeFlushIsRecoveredFromTheJournal() {
+        HotStockService service = start();
+        service.enable(PRODUCT);
+        reserve(service, 100, 3);
+        service.flush();
+        reserve(service, 50, 2);
+        // crash: the last 100 units are in the journal only
+        assertEquals(STOCK - 300, quantity());
+
+        HotStockService restarted = start();
+
+        assertEquals(STOCK - 400, quantity());
+        assertEquals(STOCK - 400, restarted.available(PRODUCT));
+        reserve(restarted, 10, 1);
+        restarted.flush();
+        assertEquals(STOCK - 410, quantity());
+
+        // a second restart replays nothing twice
+        HotStockService again = start();
+        assertEquals(STOCK - 410, quantity());
+        assertEquals(STOCK - 410, again.available(PRODUCT));
+    }
+
+    @Test
+    void journalOfAProductOwnedElsewhereFailsTheStartInsteadOfBeingDropped() {
+        HotStockService service = start();
+        service.enable(PRODUCT);
+        reserve(service, 10, 1);
+        // crash, then another instance takes the product over
+        jdbc.update("UPDATE product SET hot_stock_owner = 'instance-2' WHERE id = :id", new MapSqlParameterSource("id", PRODUCT));
+
+        assertThrows(IllegalStateException.class, this::start);
+
+        jdbc.update("UPDATE product SET hot_stock_owner = 'instance-1' WHERE id = :id", new MapSqlParameterSource("id", PRODUCT));
+        HotStockService restarted = start();
+        assertEquals(STOCK - 10, quantity());
+        assertEquals(STOCK - 10, restarted.available(PRODUCT));
+    }
+
+    @Test
+    void sequenceNumbersContinuePastDisabledProducts() {
+        HotStockService service = start();
+        service.enable(PRODUCT);
+        reserve(service, 10, 1);
+        service.disable(PRODUCT);
+
+        // the journal is emptied on restart: new entries must still come after the applied ones
+        HotStockService restarted = start();
+        restarted.enable(PRODUCT);
+        reserve(restarted, 5, 1);
+        // crash before the flush
+        start();
+
+        assertEquals(STOCK - 15, quantity());
+    }
+
+    @Test
+    void normalPathRefusesHotProductsAndOversell() {
+        assertFalse(stockRepository.decrement(PRODUCT, STOCK + 1));
+        assertTrue(stockRepository.decrement(PRODUCT, 10));
+
+        HotStockService service = start();
+        service.enable(PRODUCT);
+        assertFalse(stockRepository.decrement(PRODUCT, 1));
+
+        reserve(service, 5, 2);
+        service.disable(PRODUCT);
+        assertEquals(STOCK - 20, quantity());
+        assertEquals(Reservation.NOT_HOT, service.reserve(PRODUCT, 1));
+        assertTrue(stockRepository.decrement(PRODUCT, 1));
+    }
+
+    private HotStockService start() {
+        HotStockService service = new HotStockService(stockRepository, transactionTemplate, "instance-1",
+                dir.resolve("hot-stock.journal"), DataSize.ofMegabytes(1),
+                Duration.ofSeconds(5), 8);
+        services.add(service);
+        return service;
+    }
+
+    private static void reserve(HotStockService service, int times, int quantity) {
+        for (int i = 0; i < times; i++) {
+            assertEquals(Reservation.RESERVED, service.reserve(PRODUCT, quantity));
+        }
+    }
+
+    private long quantity() {
+        return jdbc.queryForObject("SELECT quantity FROM product WHERE id = :id",
+                new MapSqlParameterSource("id", PRODUCT), Long.class);
+    }
+}
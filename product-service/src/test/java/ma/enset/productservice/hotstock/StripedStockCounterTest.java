@@ -0,0 +1,69 @@
+package ma.enset.productservice.hotstock;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StripedStockCounterTest {
+
+    @Test
+    void reservationsSpanningStripesTakeAllOrNothing() {
+        StripedStockCounter counter = new StripedStockCounter(10, 4);
+
+        assertTrue(counter.tryReserve(7));
+        assertEquals(3, counter.available());
+        assertFalse(counter.tryReserve(4));
+        assertEquals(3, counter.available());
+        assertTrue(counter.tryReserve(3));
+        assertEquals(0, counter.available());
+    }
+
+    @Test
+    void contendedReservationsSellExactlyTheStock() throws Exception {
+        int stock = 1_000_000;
+        int threads = 64;
+        StripedStockCounter counter = new StripedStockCounter(stock, 16);
+        LongAdder sold = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> buyers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                buyers.add(executor.submit(() -> {
+                    start.await();
+                    // large quantities make the last units spread over several stripes
+                    while (counter.available() > 0) {
+                        int quantity = ThreadLocalRandom.current().nextInt(1, 50);
+                        if (counter.tryReserve(quantity)) {
+                            sold.add(quantity);
+                        } else if (counter.available() < quantity) {
+                            quantity = (int) Math.max(1, counter.available());
+                            if (counter.tryReserve(quantity)) {
+                                sold.add(quantity);
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> buyer : buyers) {
+                buyer.get();
+            }
+        }
+
+        assertEquals(stock, sold.sum());
+        assertEquals(0, counter.available());
+    }
+}
@@ -24,6 +24,9 @@ docker-compose up -d
 echo "Waiting for Keycloak to be ready (30s)..."
 sleep 30
 
+# Shared library used by product-service and order-service
+(cd service-commons && ./mvnw -q install -DskipTests)
+
 # 2. Start Config Service
 echo -e "${GREEN}[2/7] Starting Config Service...${NC}"
 cd config-service
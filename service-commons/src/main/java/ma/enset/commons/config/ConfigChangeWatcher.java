@@ -0,0 +1,141 @@
+package ma.enset.commons.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.context.refresh.ContextRefresher;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Applies config-service changes without a restart.
+ * <p>
+ * A single background thread long-polls {@code /snapshots/{application}/{profile}/changes} on the
+ * config server: the request is held until the configuration version differs from the one this
+ * instance runs with (or until the hold timeout), so an idle client costs one open request instead
+ * of a polling loop. On change, the context is refreshed after a random delay so that all instances
+ * do not re-fetch their configuration at the same moment.
+ */
+@Slf4j
+public class ConfigChangeWatcher implements ApplicationListener<ApplicationReadyEvent>, DisposableBean {
+
+    private static final long MAX_BACKOFF_MILLIS = 60_000;
+
+    private final ContextRefresher contextRefresher;
+    private final Environment environment;
+    private final RestClient restClient;
+    private final long holdMillis;
+    private final long refreshJitterMillis;
+
+    private volatile Thread worker;
+    private volatile String version;
+
+    public ConfigChangeWatcher(ContextRefresher contextRefresher, Environment environment,
+                               String configUri, long holdMillis, long refreshJitterMillis) {
+        this.contextRefresher = contextRefresher;
+        this.environment = environment;
+        this.holdMillis = holdMillis;
+        this.refreshJitterMillis = refreshJitterMillis;
+
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(Duration.ofSeconds(5));
+        requestFactory.setReadTimeout(Duration.ofMillis(holdMillis + 10_000));
+        this.restClient = RestClient.builder()
+                .baseUrl(configUri)
+                .requestFactory(requestFactory)
+                .build();
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        start();
+    }
+
+    public synchronized void start() {
+        if (worker != null) {
+            return;
+        }
+        // version of the configuration received at startup, null if the config server was not reachable
+        version = environment.getProperty("config.client.version");
+        // assigned before starting: the loop runs while it is the worker
+        worker = Thread.ofPlatform().daemon().name("config-change-watcher").unstarted(this::watch);
+        worker.start();
+    }
+
+    @Override
+    public synchronized void destroy() {
+        Thread current = worker;
+        worker = null;
+        if (current != null) {
+            current.interrupt();
+        }
+    }
+
+    /**
+     * Version of the configuration this instance currently runs with.
+     */
+    public String version() {
+        return version;
+    }
+
+    private void watch() {
+        String application = environment.getProperty("spring.application.name");
+        String profile = environment.getProperty("spring.cloud.config.profile",
+                environment.getActiveProfiles().length > 0
+                        ? String.join(",", environment.getActiveProfiles())
+                        : "default");
+        int failures = 0;
+        while (worker == Thread.currentThread()) {
+            try {
+                ResponseEntity<SnapshotVersion> response = restClient.get()
+                        .uri(uri -> uri.path("/snapshots/{application}/{profile}/changes")
+                                .queryParam("timeout", holdMillis)
+                                .queryParamIfPresent("version", Optional.ofNullable(version))
+                                .build(application, profile))
+                        .retrieve()
+                        .toEntity(SnapshotVersion.class);
+                failures = 0;
+                if (response.getStatusCode().value() == 200 && response.getBody() != null) {
+                    onVersion(response.getBody().version());
+                }
+            } catch (RuntimeException e) {
+                failures++;
+                log.debug("Config change poll failed ({} in a row): {}", failures, e.getMessage());
+                pause(Math.min(MAX_BACKOFF_MILLIS, 1000L << Math.min(failures, 6)));
+            }
+        }
+    }
+
+    private void onVersion(String latest) {
+        if (latest == null || latest.equals(version)) {
+            return;
+        }
+        pause(refreshJitterMillis);
+        Set<String> keys = contextRefresher.refresh();
+        log.info("Configuration changed ({} -> {}), refreshed keys: {}", version, latest, keys);
+        version = latest;
+    }
+
+    private void pause(long upToMillis) {
+        try {
+            Thread.sleep(upToMillis / 2 + ThreadLocalRandom.current().nextLong(upToMillis / 2 + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            worker = null;
+        }
+    }
+
+    /**
+     * Body of the config server's changes endpoint.
+     */
+    public record SnapshotVersion(String application, String profile, String label, String version) {
+    }
+}
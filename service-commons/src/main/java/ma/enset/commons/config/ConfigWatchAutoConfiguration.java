@@ -0,0 +1,32 @@
+package ma.enset.commons.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.autoconfigure.RefreshAutoConfiguration;
+import org.springframework.cloud.context.refresh.ContextRefresher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+import org.springframework.web.client.RestClient;
+
+/**
+ * Registers the {@link ConfigChangeWatcher} when {@code config.watch.enabled=true}. It stays off
+ * otherwise, so tests and tools that start a service context never open a long poll on their own.
+ */
+@AutoConfiguration(after = RefreshAutoConfiguration.class)
+@ConditionalOnClass({ContextRefresher.class, RestClient.class})
+@ConditionalOnProperty(name = "config.watch.enabled", havingValue = "true")
+public class ConfigWatchAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ConfigChangeWatcher configChangeWatcher(ContextRefresher contextRefresher,
+                                                   Environment environment,
+                                                   @Value("${config.watch.uri:http://localhost:9999}") String configUri,
+                                                   @Value("${config.watch.hold:30000}") long holdMillis,
+                                                   @Value("${config.watch.refresh-jitter:2000}") long refreshJitterMillis) {
+        return new ConfigChangeWatcher(contextRefresher, environment, configUri, holdMillis, refreshJitterMillis);
+    }
+}
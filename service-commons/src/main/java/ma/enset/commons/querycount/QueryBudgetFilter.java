@@ -0,0 +1,51 @@
+package ma.enset.commons.querycount;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Opens a {@link QueryScope} per HTTP request and logs the requests over the query budget, with the
+ * cost of each service method and the statements they ran. Requests within budget are logged at debug.
+ */
+@Slf4j
+public class QueryBudgetFilter extends OncePerRequestFilter {
+
+    private final QueryBudgetProperties properties;
+
+    public QueryBudgetFilter(QueryBudgetProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryScope scope = QueryScope.open(request.getMethod() + " " + request.getRequestURI());
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            scope.close();
+            report(request, response, scope);
+        }
+    }
+
+    private void report(HttpServletRequest request, HttpServletResponse response, QueryScope scope) {
+        // the mapping pattern groups the log lines of one endpoint, e.g. GET /orders/{id}
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String endpoint = request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+        if (scope.getCount() > properties.getMaxQueries() || scope.getNanos() > properties.getMaxTime().toNanos()) {
+            log.warn("{} [{}] over query budget: {} queries in {} ms (budget {} queries, {} ms), by method {}, statements {}",
+                    endpoint, response.getStatus(), scope.getCount(), scope.getMillis(), properties.getMaxQueries(),
+                    properties.getMaxTime().toMillis(), scope.getChildren(), scope.getStatements());
+        } else if (log.isDebugEnabled() && scope.getCount() > 0) {
+            log.debug("{} [{}]: {} queries in {} ms, by method {}", endpoint, response.getStatus(),
+                    scope.getCount(), scope.getMillis(), scope.getChildren());
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package ma.enset.commons.querycount;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "query-budget")
+public class QueryBudgetProperties {
+
+    /**
+     * Counts and times the SQL statements of each HTTP request and service method.
+     */
+    private boolean enabled = true;
+
+    /**
+     * A request executing more statements than this is logged with its statements.
+     */
+    private int maxQueries = 10;
+
+    /**
+     * A request spending more time than this in the database is logged with its statements.
+     */
+    private Duration maxTime = Duration.ofMillis(500);
+}
@@ -0,0 +1,60 @@
+package ma.enset.commons.querycount;
+
+import java.util.ArrayDeque;
+
+/**
+ * Per-thread stack of open {@link QueryScope}s, fed by {@link QueryCountingDataSource}.
+ * Statements executed outside any scope (startup, migrations, scheduled jobs) are not recorded.
+ */
+final class QueryCounter {
+
+    static final int MAX_RECORDED_STATEMENTS = 50;
+
+    private static final ThreadLocal<ArrayDeque<QueryScope>> SCOPES = new ThreadLocal<>();
+
+    private QueryCounter() {
+    }
+
+    static QueryScope open(String name) {
+        ArrayDeque<QueryScope> scopes = SCOPES.get();
+        if (scopes == null) {
+            scopes = new ArrayDeque<>();
+            SCOPES.set(scopes);
+        }
+        QueryScope scope = new QueryScope(name, MAX_RECORDED_STATEMENTS);
+        scopes.push(scope);
+        return scope;
+    }
+
+    static void close(QueryScope scope) {
+        ArrayDeque<QueryScope> scopes = SCOPES.get();
+        if (scopes == null) {
+            return;
+        }
+        // scopes are closed in reverse order of opening; tolerate a scope left open by a failure
+        while (!scopes.isEmpty()) {
+            if (scopes.pop() == scope) {
+                break;
+            }
+        }
+        QueryScope parent = scopes.peek();
+        if (parent != null) {
+            parent.childClosed(scope);
+        } else {
+            SCOPES.remove();
+        }
+    }
+
+    static boolean active() {
+        return SCOPES.get() != null;
+    }
+
+    static void record(String sql, long elapsedNanos) {
+        ArrayDeque<QueryScope> scopes = SCOPES.get();
+        if (scopes != null) {
+            for (QueryScope scope : scopes) {
+                scope.record(sql, elapsedNanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package ma.enset.commons.querycount;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Times every statement executed through the wrapped data source and reports it to the open
+ * {@link QueryScope}s of the calling thread. Within a traced request, each statement is also a
+ * {@code jdbc.query} observation, i.e. a JDBC span under the current one.
+ * <p>
+ * Connections and statements are wrapped in JDK proxies; when data sources wrapping each other are
+ * both instrumented, only the innermost statement counts.
+ */
+public class QueryCountingDataSource extends DelegatingDataSource {
+
+    private final Supplier<ObservationRegistry> observationRegistry;
+
+    public QueryCountingDataSource(DataSource targetDataSource, Supplier<ObservationRegistry> observationRegistry) {
+        super(targetDataSource);
+        this.observationRegistry = observationRegistry;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connection(super.getConnection(username, password));
+    }
+
+    private Connection connection(Connection target) {
+        return (Connection) Proxy.newProxyInstance(QueryCountingDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(target, observationRegistry));
+    }
+
+    /**
+     * Implemented by the statement proxies, so that they are not wrapped a second time.
+     */
+    interface CountedStatement {
+    }
+
+    private record ConnectionHandler(Connection target, Supplier<ObservationRegistry> observationRegistry)
+            implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                case "isWrapperFor":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return true;
+                    }
+                    break;
+                default:
+            }
+            Object result = invokeTarget(target, method, args);
+            if (result instanceof Statement statement && !(result instanceof CountedStatement)) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+                return statement(statement, sql, observationRegistry);
+            }
+            return result;
+        }
+    }
+
+    private static Statement statement(Statement target, String sql, Supplier<ObservationRegistry> observationRegistry) {
+        Class<?> type = target instanceof CallableStatement ? CallableStatement.class
+                : target instanceof PreparedStatement ? PreparedStatement.class
+                : Statement.class;
+        return (Statement) Proxy.newProxyInstance(QueryCountingDataSource.class.getClassLoader(),
+                new Class<?>[]{type, CountedStatement.class}, new StatementHandler(target, sql, observationRegistry));
+    }
+
+    private record StatementHandler(Statement target, String preparedSql,
+                                    Supplier<ObservationRegistry> observationRegistry) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!method.getName().startsWith("execute")) {
+                return invokeTarget(target, method, args);
+            }
+            ObservationRegistry registry = observationRegistry.get();
+            boolean traced = registry.getCurrentObservation() != null;
+            if (!traced && !QueryCounter.active()) {
+                return invokeTarget(target, method, args);
+            }
+            String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : preparedSql;
+            Observation observation = traced ? observation(registry, sql) : Observation.NOOP;
+            long start = System.nanoTime();
+            try {
+                return invokeTarget(target, method, args);
+            } catch (Throwable e) {
+                observation.error(e);
+                throw e;
+            } finally {
+                QueryCounter.record(sql, System.nanoTime() - start);
+                observation.stop();
+            }
+        }
+
+        private static Observation observation(ObservationRegistry registry, String sql) {
+            String operation = sql == null ? "batch" : sql.strip().split("\\s", 2)[0].toLowerCase(Locale.ROOT);
+            return Observation.createNotStarted("jdbc.query", registry)
+                    .contextualName("jdbc " + operation)
+                    .lowCardinalityKeyValue("db.operation", operation)
+                    .highCardinalityKeyValue("db.statement", String.valueOf(sql))
+                    .start();
+        }
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
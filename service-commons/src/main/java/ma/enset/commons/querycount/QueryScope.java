@@ -0,0 +1,126 @@
+package ma.enset.commons.querycount;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SQL statements executed on the current thread while the scope is open (an HTTP request, a service
+ * method call or a test block). Scopes nest: a statement is counted in every open scope, and a closed
+ * scope reports its totals to the enclosing one so that a request knows what each service method cost.
+ */
+public class QueryScope implements AutoCloseable {
+
+    private final String name;
+    private final int maxRecordedStatements;
+    private final List<String> statements = new ArrayList<>();
+    private final Map<String, Totals> children = new LinkedHashMap<>();
+    private int count;
+    private long nanos;
+    private boolean closed;
+
+    QueryScope(String name, int maxRecordedStatements) {
+        this.name = name;
+        this.maxRecordedStatements = maxRecordedStatements;
+    }
+
+    /**
+     * Opens a scope on the current thread; close it on the same thread, preferably with try-with-resources.
+     */
+    public static QueryScope open(String name) {
+        return QueryCounter.open(name);
+    }
+
+    void record(String sql, long elapsedNanos) {
+        count++;
+        nanos += elapsedNanos;
+        if (statements.size() < maxRecordedStatements) {
+            statements.add(sql);
+        }
+    }
+
+    void childClosed(QueryScope child) {
+        children.computeIfAbsent(child.name, key -> new Totals()).add(child.count, child.nanos);
+        child.children.forEach((name, totals) -> children.computeIfAbsent(name, key -> new Totals()).add(totals));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    public long getMillis() {
+        return nanos / 1_000_000;
+    }
+
+    /**
+     * First statements executed in the scope, in order; at most {@code maxRecordedStatements} are kept.
+     */
+    public List<String> getStatements() {
+        return Collections.unmodifiableList(statements);
+    }
+
+    /**
+     * Query count and time of the scopes opened and closed inside this one, at any depth, by name.
+     */
+    public Map<String, Totals> getChildren() {
+        return Collections.unmodifiableMap(children);
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            QueryCounter.close(this);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name + ": " + count + " queries in " + getMillis() + " ms";
+    }
+
+    public static class Totals {
+        private int calls;
+        private int count;
+        private long nanos;
+
+        void add(int count, long nanos) {
+            this.calls++;
+            this.count += count;
+            this.nanos += nanos;
+        }
+
+        void add(Totals other) {
+            this.calls += other.calls;
+            this.count += other.count;
+            this.nanos += other.nanos;
+        }
+
+        public int getCalls() {
+            return calls;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        @Override
+        public String toString() {
+            return count + " queries in " + nanos / 1_000_000 + " ms (" + calls + " calls)";
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package ma.enset.commons.querycount;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+
+/**
+ * Opens a {@link QueryScope} around each service method call, named {@code Class.method}, so that the
+ * enclosing request scope can break its statements down by service method.
+ */
+class ServiceQueryCountInterceptor implements MethodInterceptor {
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (!QueryCounter.active()) {
+            return invocation.proceed();
+        }
+        Class<?> targetClass = invocation.getThis() != null
+                ? AopUtils.getTargetClass(invocation.getThis())
+                : invocation.getMethod().getDeclaringClass();
+        try (QueryScope ignored = QueryScope.open(targetClass.getSimpleName() + "." + invocation.getMethod().getName())) {
+            return invocation.proceed();
+        }
+    }
+}
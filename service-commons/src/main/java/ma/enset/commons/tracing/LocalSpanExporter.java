@@ -0,0 +1,229 @@
+package ma.enset.commons.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.tracing.exporter.FinishedSpan;
+import io.micrometer.tracing.exporter.SpanReporter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the last finished spans in memory and, when a span file is configured, appends them to it as
+ * JSON lines. The gateway, order-service and product-service can share the same file, so that a trace
+ * crossing the three services can be read back in one place without any collector running.
+ * <p>
+ * Spans are written by a background thread in batches: the request threads only enqueue them, and
+ * drop them when the queue is full rather than wait. Writers of all processes take a lock on
+ * {@code <file>.lock} to append or rotate, so that two services never rotate the same file twice or
+ * interleave their lines.
+ * <p>
+ * Reading keeps the last spans of the file in memory and only parses what was appended since the
+ * previous read, following the file through rotations.
+ */
+@Slf4j
+public class LocalSpanExporter implements SpanReporter {
+
+    private static final int QUEUE_CAPACITY = 10_000;
+    // bytes read at most to catch up with the file, e.g. on the first read of a large file
+    static final long MAX_CATCH_UP_BYTES = 8 * 1024 * 1024;
+    // file locks are held per JVM: exporters of the same JVM (several contexts) also take this monitor
+    private static final Object APPEND_MONITOR = new Object();
+
+    private final ObjectMapper objectMapper;
+    private final String service;
+    private final Path file;
+    private final Path rotatedFile;
+    private final Path lockFile;
+    private final long maxFileBytes;
+    private final int maxSpans;
+    private final ArrayDeque<SpanRecord> recent;
+    private final BlockingQueue<SpanRecord> pending = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread writer;
+
+    // read position in the span file, guarded by recent
+    private Object tailFile;
+    private long tailPosition;
+
+    public LocalSpanExporter(ObjectMapper objectMapper, String service, Path file, long maxFileBytes, int maxSpans) {
+        this.objectMapper = objectMapper;
+        this.service = service;
+        this.file = file;
+        this.rotatedFile = file != null ? file.resolveSibling(file.getFileName() + ".1") : null;
+        this.lockFile = file != null ? file.resolveSibling(file.getFileName() + ".lock") : null;
+        this.maxFileBytes = maxFileBytes;
+        this.maxSpans = maxSpans;
+        this.recent = new ArrayDeque<>(maxSpans);
+        this.writer = file != null
+                ? Thread.ofPlatform().daemon().name("local-span-writer").start(this::writeLoop)
+                : null;
+    }
+
+    @Override
+    public void report(FinishedSpan span) {
+        report(SpanRecord.of(span, service));
+    }
+
+    void report(SpanRecord record) {
+        if (writer != null) {
+            // read back from the file with the spans of the other services
+            pending.offer(record);
+            return;
+        }
+        synchronized (recent) {
+            keep(record);
+        }
+    }
+
+    /**
+     * Spans of all the services writing to the span file, or of this service only when there is none.
+     */
+    public List<SpanRecord> spans() {
+        synchronized (recent) {
+            if (file != null) {
+                readAppended();
+            }
+            return new ArrayList<>(recent);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (writer != null) {
+            writer.interrupt();
+        }
+    }
+
+    private void keep(SpanRecord record) {
+        if (recent.size() == maxSpans) {
+            recent.removeFirst();
+        }
+        recent.addLast(record);
+    }
+
+    private void readAppended() {
+        try {
+            Object current = Files.exists(file) ? identity(file) : null;
+            if (tailFile != null && !tailFile.equals(current)) {
+                // rotated since the last read: finish the previous file, now renamed, then start the new one
+                if (Files.exists(rotatedFile) && tailFile.equals(identity(rotatedFile))) {
+                    read(rotatedFile);
+                }
+                tailPosition = 0;
+            }
+            tailFile = current;
+            if (current != null) {
+                read(file);
+            }
+        } catch (IOException e) {
+            log.debug("Cannot read span file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private void read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < tailPosition) {
+                tailPosition = 0;
+            }
+            boolean skipFirstLine = false;
+            if (size - tailPosition > MAX_CATCH_UP_BYTES) {
+                // only the last spans are kept anyway
+                tailPosition = size - MAX_CATCH_UP_BYTES;
+                skipFirstLine = true;
+            }
+            if (size == tailPosition) {
+                return;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) (size - tailPosition));
+            while (buffer.hasRemaining() && channel.read(buffer, tailPosition + buffer.position()) > 0) {
+                // read up to the size seen above, lines appended meanwhile are read next time
+            }
+            byte[] bytes = buffer.array();
+            int length = buffer.position();
+            int start = 0;
+            for (int i = 0; i < length; i++) {
+                if (bytes[i] != '\n') {
+                    continue;
+                }
+                if (skipFirstLine) {
+                    skipFirstLine = false;
+                } else if (i > start) {
+                    parse(bytes, start, i - start);
+                }
+                start = i + 1;
+            }
+            // a last line without its newline is still being written: read again from its start
+            tailPosition += start;
+        }
+    }
+
+    private void parse(byte[] bytes, int offset, int length) {
+        try {
+            keep(objectMapper.readValue(bytes, offset, length, SpanRecord.class));
+        } catch (IOException e) {
+            // not a span, e.g. a line cut by a crash during a write
+        }
+    }
+
+    private static Object identity(Path path) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        // file keys (device and inode) are not available on every platform
+        return attributes.fileKey() != null ? attributes.fileKey() : attributes.creationTime();
+    }
+
+    private void writeLoop() {
+        List<SpanRecord> batch = new ArrayList<>();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                SpanRecord first = pending.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                pending.drainTo(batch, 999);
+                append(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void append(List<SpanRecord> batch) {
+        try {
+            StringBuilder lines = new StringBuilder();
+            for (SpanRecord record : batch) {
+                lines.append(objectMapper.writeValueAsString(record)).append('\n');
+            }
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            synchronized (APPEND_MONITOR) {
+                try (FileChannel lockChannel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                     FileLock ignored = lockChannel.lock()) {
+                    // checked under the lock: the service that rotates first is the only one to rotate
+                    if (Files.exists(file) && Files.size(file) > maxFileBytes) {
+                        Files.move(file, rotatedFile, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    Files.writeString(file, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Cannot write {} spans to {}: {}", batch.size(), file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package ma.enset.commons.tracing;
+
+import io.micrometer.tracing.exporter.FinishedSpan;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A finished span as stored by {@link LocalSpanExporter}, one JSON line per span in the span file.
+ */
+public record SpanRecord(String traceId,
+                         String spanId,
+                         String parentId,
+                         String service,
+                         String name,
+                         String kind,
+                         Instant start,
+                         long durationMicros,
+                         Map<String, String> tags,
+                         String error) {
+
+    static SpanRecord of(FinishedSpan span, String service) {
+        return new SpanRecord(span.getTraceId(),
+                span.getSpanId(),
+                span.getParentId(),
+                span.getLocalServiceName() != null ? span.getLocalServiceName() : service,
+                span.getName(),
+                span.getKind() != null ? span.getKind().name() : null,
+                span.getStartTimestamp(),
+                Duration.between(span.getStartTimestamp(), span.getEndTimestamp()).toNanos() / 1000,
+                new TreeMap<>(span.getTags()),
+                span.getError() != null ? span.getError().toString() : null);
+    }
+}
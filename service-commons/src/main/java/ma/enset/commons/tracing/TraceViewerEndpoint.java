@@ -0,0 +1,113 @@
+package ma.enset.commons.tracing;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * {@code /actuator/traces}: the recent traces found by {@link LocalSpanExporter}, newest first, and
+ * {@code /actuator/traces/{traceId}}: the spans of one trace as a waterfall, each with its depth in the
+ * call tree and its offset from the start of the trace.
+ */
+@Endpoint(id = "traces")
+public class TraceViewerEndpoint {
+
+    private static final int MAX_TRACES = 100;
+
+    private final LocalSpanExporter exporter;
+
+    public TraceViewerEndpoint(LocalSpanExporter exporter) {
+        this.exporter = exporter;
+    }
+
+    @ReadOperation
+    public List<TraceSummary> traces() {
+        Map<String, List<SpanRecord>> traces = new LinkedHashMap<>();
+        for (SpanRecord span : exporter.spans()) {
+            traces.computeIfAbsent(span.traceId(), id -> new ArrayList<>()).add(span);
+        }
+        return traces.entrySet().stream()
+                .map(trace -> summary(trace.getKey(), trace.getValue()))
+                .sorted(Comparator.comparing(TraceSummary::start).reversed())
+                .limit(MAX_TRACES)
+                .toList();
+    }
+
+    @ReadOperation
+    public TraceView trace(@Selector String traceId) {
+        List<SpanRecord> spans = exporter.spans().stream()
+                .filter(span -> span.traceId().equals(traceId))
+                .sorted(Comparator.comparing(SpanRecord::start))
+                .toList();
+        if (spans.isEmpty()) {
+            return null;
+        }
+        Instant start = spans.getFirst().start();
+        Map<String, SpanRecord> byId = new HashMap<>();
+        spans.forEach(span -> byId.put(span.spanId(), span));
+        List<SpanView> views = spans.stream()
+                .map(span -> new SpanView(depth(span, byId), micros(start, span.start()) / 1000.0,
+                        span.durationMicros() / 1000.0, span.service(), span.name(), span.kind(), span.spanId(),
+                        span.parentId(), span.tags(), span.error()))
+                .toList();
+        return new TraceView(traceId, start, durationMillis(spans), views);
+    }
+
+    private static TraceSummary summary(String traceId, List<SpanRecord> spans) {
+        Set<String> spanIds = new HashSet<>();
+        spans.forEach(span -> spanIds.add(span.spanId()));
+        // the root is the span whose parent was not recorded (the gateway's span, or the first service reached)
+        SpanRecord root = spans.stream()
+                .filter(span -> span.parentId() == null || !spanIds.contains(span.parentId()))
+                .min(Comparator.comparing(SpanRecord::start))
+                .orElse(spans.getFirst());
+        Set<String> services = new TreeSet<>();
+        spans.forEach(span -> services.add(span.service()));
+        boolean error = spans.stream().anyMatch(span -> span.error() != null);
+        return new TraceSummary(traceId, root.service() + " " + root.name(), root.start(), durationMillis(spans),
+                spans.size(), services, error);
+    }
+
+    private static int depth(SpanRecord span, Map<String, SpanRecord> byId) {
+        int depth = 0;
+        SpanRecord parent = byId.get(span.parentId());
+        while (parent != null && depth < byId.size()) {
+            depth++;
+            parent = byId.get(parent.parentId());
+        }
+        return depth;
+    }
+
+    private static double durationMillis(List<SpanRecord> spans) {
+        Instant start = spans.stream().map(SpanRecord::start).min(Comparator.naturalOrder()).orElseThrow();
+        long end = spans.stream().mapToLong(span -> micros(start, span.start()) + span.durationMicros()).max().orElse(0);
+        return end / 1000.0;
+    }
+
+    private static long micros(Instant from, Instant to) {
+        return Duration.between(from, to).toNanos() / 1000;
+    }
+
+    public record TraceSummary(String traceId, String root, Instant start, double durationMillis, int spans,
+                               Set<String> services, boolean error) {
+    }
+
+    public record TraceView(String traceId, Instant start, double durationMillis, List<SpanView> spans) {
+    }
+
+    public record SpanView(int depth, double offsetMillis, double durationMillis, String service, String name,
+                           String kind, String spanId, String parentId, Map<String, String> tags, String error) {
+    }
+}
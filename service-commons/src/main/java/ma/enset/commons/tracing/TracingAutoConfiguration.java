@@ -0,0 +1,72 @@
+package ma.enset.commons.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.ObservationPredicate;
+import io.micrometer.tracing.exporter.SpanReporter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+
+/**
+ * Tracing with a local exporter: spans are kept in memory and appended to {@code tracing.local.file},
+ * and read back by the {@code traces} actuator endpoint. Propagation and sampling are Spring Boot's
+ * ({@code management.tracing.*}); the gateway takes the sampling decision and the services follow it.
+ * <p>
+ * The endpoint shows the SQL statements of the traced requests: the applications restrict it to admins.
+ */
+@AutoConfiguration
+@ConditionalOnClass({SpanReporter.class, Endpoint.class})
+public class TracingAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public LocalSpanExporter localSpanExporter(ObjectMapper objectMapper,
+                                               @Value("${spring.application.name}") String service,
+                                               @Value("${tracing.local.file:}") String file,
+                                               @Value("${tracing.local.max-file-size:50MB}") DataSize maxFileSize,
+                                               @Value("${tracing.local.max-spans:10000}") int maxSpans) {
+        return new LocalSpanExporter(objectMapper, service, StringUtils.hasText(file) ? Path.of(file) : null,
+                maxFileSize.toBytes(), maxSpans);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public TraceViewerEndpoint traceViewerEndpoint(LocalSpanExporter localSpanExporter) {
+        return new TraceViewerEndpoint(localSpanExporter);
+    }
+
+    // actuator calls (health checks, the trace viewer itself) and Spring Security's filter chain spans
+    // only add noise to the traces
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    static class ServletNoiseFilter {
+
+        @Bean
+        public ObservationPredicate tracingNoiseFilter() {
+            return (name, context) -> !name.startsWith("spring.security.")
+                    && !(context instanceof org.springframework.http.server.observation.ServerRequestObservationContext server
+                    && server.getCarrier().getRequestURI().startsWith("/actuator"));
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    static class ReactiveNoiseFilter {
+
+        @Bean
+        public ObservationPredicate tracingNoiseFilter() {
+            return (name, context) -> !name.startsWith("spring.security.")
+                    && !(context instanceof org.springframework.http.server.reactive.observation.ServerRequestObservationContext server
+                    && server.getCarrier().getPath().value().startsWith("/actuator"));
+        }
+    }
+}
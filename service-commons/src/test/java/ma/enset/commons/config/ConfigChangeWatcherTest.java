@@ -0,0 +1,106 @@
+package ma.enset.commons.config;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.autoconfigure.RefreshAutoConfiguration;
+import org.springframework.cloud.context.refresh.ContextRefresher;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConfigChangeWatcherTest {
+
+    private final List<String> queries = new CopyOnWriteArrayList<>();
+    private final AtomicInteger refreshes = new AtomicInteger();
+    private final ContextRefresher contextRefresher = new ContextRefresher(null, null, new RefreshAutoConfiguration.RefreshProperties()) {
+        @Override
+        public synchronized Set<String> refresh() {
+            refreshes.incrementAndGet();
+            return Set.of("order.page-size");
+        }
+
+        @Override
+        protected void updateEnvironment() {
+        }
+    };
+    private HttpServer server;
+    private ConfigChangeWatcher watcher;
+
+    @BeforeEach
+    void startConfigServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/snapshots/order-service/default/changes", exchange -> {
+            String query = exchange.getRequestURI().getQuery();
+            queries.add(query);
+            if (query.contains("version=v1")) {
+                byte[] body = """
+                        {"application":"order-service","profile":"default","label":null,"version":"v2"}"""
+                        .getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            }
+            else {
+                sleep(50);
+                exchange.sendResponseHeaders(304, -1);
+            }
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stop() {
+        if (watcher != null) {
+            watcher.destroy();
+        }
+        server.stop(0);
+    }
+
+    @Test
+    void refreshesOnceWhenTheServerReportsANewVersion() throws Exception {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("spring.application.name", "order-service")
+                .withProperty("config.client.version", "v1");
+        watcher = new ConfigChangeWatcher(contextRefresher, environment,
+                "http://localhost:" + server.getAddress().getPort(), 1000, 0);
+
+        watcher.start();
+
+        awaitQueries(3);
+        assertEquals(1, refreshes.get());
+        assertEquals("v2", watcher.version());
+        assertTrue(queries.get(0).contains("version=v1"), queries.get(0));
+        assertTrue(queries.get(queries.size() - 1).contains("version=v2"), queries.get(queries.size() - 1));
+        assertEquals(1, refreshes.get());
+    }
+
+
+    private void awaitQueries(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (queries.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
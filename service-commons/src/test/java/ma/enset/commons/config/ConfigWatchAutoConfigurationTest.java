@@ -0,0 +1,27 @@
+package ma.enset.commons.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.cloud.context.refresh.ContextRefresher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ConfigWatchAutoConfigurationTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(ConfigWatchAutoConfiguration.class))
+            .withBean(ContextRefresher.class, () -> mock(ContextRefresher.class));
+
+    @Test
+    void watcherIsOffUnlessEnabled() {
+        contextRunner.run(context -> assertThat(context).doesNotHaveBean(ConfigChangeWatcher.class));
+    }
+
+    @Test
+    void watcherIsRegisteredWhenEnabled() {
+        contextRunner.withPropertyValues("config.watch.enabled=true", "config.watch.uri=http://config:9999")
+                .run(context -> assertThat(context).hasSingleBean(ConfigChangeWatcher.class));
+    }
+}
@@ -0,0 +1,51 @@
+package ma.enset.commons.querycount;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Query budgets for integration tests. The action runs inside a {@link QueryScope} on the test thread,
+ * which with MockMvc also covers the request filter, the controller and the services:
+ * <pre>
+ * QueryScope scope = assertMaxQueries(2, () -> mockMvc.perform(get("/orders/{id}", id).with(client))
+ *         .andExpect(status().isOk()));
+ * </pre>
+ * Failure messages list the statements, so that a regression shows which query was added.
+ */
+public final class QueryBudgetAssertions {
+
+    private QueryBudgetAssertions() {
+    }
+
+    public static QueryScope recordQueries(ThrowingRunnable action) throws Exception {
+        try (QueryScope scope = QueryScope.open("test")) {
+            action.run();
+            return scope;
+        }
+    }
+
+    public static QueryScope assertMaxQueries(int maxQueries, ThrowingRunnable action) throws Exception {
+        QueryScope scope = recordQueries(action);
+        assertTrue(scope.getCount() <= maxQueries,
+                () -> "expected at most " + maxQueries + " queries but got " + describe(scope));
+        return scope;
+    }
+
+    public static QueryScope assertQueryCount(int expected, ThrowingRunnable action) throws Exception {
+        QueryScope scope = recordQueries(action);
+        assertEquals(expected, scope.getCount(), () -> "unexpected query count, " + describe(scope));
+        return scope;
+    }
+
+    private static String describe(QueryScope scope) {
+        StringBuilder description = new StringBuilder().append(scope.getCount()).append(" queries, by method ")
+                .append(scope.getChildren());
+        scope.getStatements().forEach(sql -> description.append(System.lineSeparator()).append("  ").append(sql));
+        return description.toString();
+    }
+
+    @FunctionalInterface
+    public interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+}
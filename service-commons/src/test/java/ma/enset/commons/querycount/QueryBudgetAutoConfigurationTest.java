@@ -0,0 +1,70 @@
+package ma.enset.commons.querycount;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.aop.AopAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+
+import static ma.enset.commons.querycount.QueryBudgetAssertions.assertQueryCount;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryBudgetAutoConfigurationTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(AopAutoConfiguration.class, QueryBudgetAutoConfiguration.class))
+            .withBean("dataSource", DataSource.class, () -> new SimpleDriverDataSource(new org.h2.Driver(),
+                    "jdbc:h2:mem:query-budget;DB_CLOSE_DELAY=-1", "sa", ""))
+            .withBean("otherPool", SimpleDriverDataSource.class, () -> new SimpleDriverDataSource(new org.h2.Driver(),
+                    "jdbc:h2:mem:query-budget-other;DB_CLOSE_DELAY=-1", "sa", ""))
+            .withBean(CountingService.class);
+
+    @Test
+    void onlyTheApplicationDataSourceIsWrapped() {
+        contextRunner.run(context -> {
+            assertThat(context.getBean("dataSource")).isInstanceOf(QueryCountingDataSource.class);
+            assertThat(context.getBean("otherPool")).isNotInstanceOf(QueryCountingDataSource.class);
+        });
+    }
+
+    @Test
+    void statementsAreCountedPerScopeAndServiceMethod() {
+        contextRunner.run(context -> {
+            CountingService service = context.getBean(CountingService.class);
+            QueryScope scope = assertQueryCount(3, () -> {
+                service.query(2);
+                new JdbcTemplate(context.getBean("dataSource", DataSource.class)).queryForObject("SELECT 1", Integer.class);
+            });
+            assertThat(scope.getChildren().get("CountingService.query").getCount()).isEqualTo(2);
+        });
+    }
+
+    @Test
+    void serviceScopesAreSkippedWhenDisabled() {
+        contextRunner.withPropertyValues("query-budget.enabled=false").run(context -> {
+            QueryScope scope = assertQueryCount(1, () -> context.getBean(CountingService.class).query(1));
+            assertThat(scope.getChildren()).isEmpty();
+        });
+    }
+
+    @Service
+    static class CountingService {
+
+        private final JdbcTemplate jdbc;
+
+        CountingService(@Qualifier("dataSource") DataSource dataSource) {
+            this.jdbc = new JdbcTemplate(dataSource);
+        }
+
+        public void query(int times) {
+            for (int i = 0; i < times; i++) {
+                jdbc.queryForObject("SELECT 1", Integer.class);
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package ma.enset.commons.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalSpanExporterTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+    private final List<LocalSpanExporter> exporters = new ArrayList<>();
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void close() {
+        exporters.forEach(LocalSpanExporter::close);
+    }
+
+    @Test
+    void withoutFileTheLastSpansOfThisServiceAreKept() {
+        LocalSpanExporter exporter = exporter("order-service", null, 3);
+        for (int i = 0; i < 5; i++) {
+            exporter.report(span("order-service", i));
+        }
+
+        assertEquals(List.of("span-2", "span-3", "span-4"), names(exporter.spans()));
+    }
+
+    @Test
+    void servicesSharingTheFileSeeEachOtherSpans() throws Exception {
+        Path file = directory.resolve("spans.jsonl");
+        LocalSpanExporter gateway = exporter("gateway-service", file, 100);
+        LocalSpanExporter orders = exporter("order-service", file, 100);
+
+        gateway.report(span("gateway-service", 1));
+        orders.report(span("order-service", 2));
+
+        await(() -> gateway.spans().size() == 2);
+        assertEquals(2, orders.spans().size());
+    }
+
+    @Test
+    void onlyTheAppendedCompleteLinesAreParsed() throws Exception {
+        Path file = directory.resolve("spans.jsonl");
+        LocalSpanExporter exporter = exporter("order-service", file, 100);
+        append(file, line(span("gateway-service", 1)) + "\n");
+        assertEquals(List.of("span-1"), names(exporter.spans()));
+
+        // a line still being written by another service is read once complete
+        String partial = line(span("gateway-service", 2));
+        append(file, partial.substring(0, 20));
+        assertEquals(List.of("span-1"), names(exporter.spans()));
+        append(file, partial.substring(20) + "\nnot a span\n");
+
+        assertEquals(List.of("span-1", "span-2"), names(exporter.spans()));
+        assertEquals(List.of("span-1", "span-2"), names(exporter.spans()));
+    }
+
+    @Test
+    void readingFinishesTheRotatedFileBeforeTheNewOne() throws Exception {
+        Path file = directory.resolve("spans.jsonl");
+        Path rotated = directory.resolve("spans.jsonl.1");
+        LocalSpanExporter reader = exporter("gateway-service", file, 100);
+        // rotates once the file holds two spans
+        LocalSpanExporter writer = exporter("order-service", file, 100, line(span("order-service", 1)).length() + 10);
+
+        writer.report(span("order-service", 1));
+        await(() -> names(readFile(file)).equals(List.of("span-1")));
+        assertEquals(List.of("span-1"), names(reader.spans()));
+
+        writer.report(span("order-service", 2));
+        await(() -> names(readFile(file)).equals(List.of("span-1", "span-2")));
+        writer.report(span("order-service", 3));
+        await(() -> Files.exists(rotated) && names(readFile(file)).equals(List.of("span-3")));
+
+        assertEquals(List.of("span-1", "span-2", "span-3"), names(reader.spans()));
+    }
+
+    private LocalSpanExporter exporter(String service, Path file, int maxSpans) {
+        return exporter(service, file, maxSpans, 50_000_000);
+    }
+
+    private LocalSpanExporter exporter(String service, Path file, int maxSpans, long maxFileBytes) {
+        LocalSpanExporter exporter = new LocalSpanExporter(objectMapper, service, file, maxFileBytes, maxSpans);
+        exporters.add(exporter);
+        return exporter;
+    }
+
+    private List<SpanRecord> readFile(Path file) throws IOException {
+        List<SpanRecord> spans = new ArrayList<>();
+        if (!Files.exists(file)) {
+            return spans;
+        }
+        for (String line : Files.readAllLines(file)) {
+            spans.add(objectMapper.readValue(line, SpanRecord.class));
+        }
+        return spans;
+    }
+
+    private String line(SpanRecord span) throws IOException {
+        return objectMapper.writeValueAsString(span);
+    }
+
+    private static void append(Path file, String content) throws IOException {
+        Files.writeString(file, content, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private static SpanRecord span(String service, int i) {
+        return new SpanRecord("trace-" + i, "span-" + i, null, service, "span-" + i, "SERVER",
+                Instant.now(), 1000, Map.of(), null);
+    }
+
+    private static List<String> names(List<SpanRecord> spans) {
+        return spans.stream().map(SpanRecord::name).toList();
+    }
+
+    private static void await(ThrowingCondition condition) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.met()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            Thread.sleep(20);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThrowingCondition {
+        boolean met() throws Exception;
+    }
+}